@@ -0,0 +1,404 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A store for the raw samples of previous benchmark runs. There is one file per git commit,
+ * containing one line per cell and measure. The samples of the current run are compared
+ * with a reference commit using a one-sided Welch's t-test. Repetitions which did not find
+ * a solution are recorded as NaN.
+ */
+public class BenchmarkBaseline {
+
+    /** Suffix of baseline files */
+    private static final String SUFFIX = ".csv";
+
+    /** The directory containing the baseline files */
+    private final File          directory;
+    /** The commit of the current run */
+    private final String        commit;
+
+    /**
+     * @param directory
+     * @param commit
+     */
+    public BenchmarkBaseline(File directory, String commit) {
+        this.directory = directory;
+        this.commit = commit;
+    }
+
+    /**
+     * Returns the current git commit, suffixed with <code>-dirty</code> if the working tree
+     * has uncommitted changes, or <code>"unknown"</code> if it cannot be determined
+     * @return
+     */
+    public static String getGitCommit() {
+        List<String> lines = git("describe", "--always", "--dirty");
+        return lines == null || lines.isEmpty() ? "unknown" : lines.get(0).trim();
+    }
+
+    /**
+     * Stores the samples of the cells for the current commit. Cells stored for this commit
+     * by previous runs are kept unless they have been run again.
+     * @param cells
+     * @param measures the labels of the measures
+     * @throws IOException
+     */
+    public void store(List<BenchmarkCell> cells, String[] measures) throws IOException {
+        Map<String, Map<String, double[]>> baseline = load(commit);
+        for (BenchmarkCell cell : cells) {
+            Map<String, double[]> samples = new LinkedHashMap<>();
+            for (String measure : measures) {
+                if (cell.getSamples(measure).length != 0) {
+                    samples.put(measure, cell.getSamples(measure));
+                }
+            }
+            baseline.put(cell.getKey(), samples);
+        }
+        directory.mkdirs();
+        BufferedWriter writer = new BufferedWriter(new FileWriter(getFile(commit)));
+        try {
+            for (Entry<String, Map<String, double[]>> cell : baseline.entrySet()) {
+                for (Entry<String, double[]> measure : cell.getValue().entrySet()) {
+                    writer.write(cell.getKey() + ";" + measure.getKey());
+                    for (double sample : measure.getValue()) {
+                        writer.write(";" + sample);
+                    }
+                    writer.newLine();
+                }
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @param commit
+     * @return whether samples have been stored for the commit
+     */
+    public boolean isStored(String commit) {
+        return getFile(commit).exists();
+    }
+
+    /**
+     * Returns the stored commit which is the nearest ancestor of the checked out commit, other
+     * than the current one, or <code>null</code> if there is none. Runs of dirty working trees
+     * are never used as a reference.
+     * @return
+     */
+    public String getLatestReference() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return null;
+        }
+        Map<String, String> stored = new HashMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(SUFFIX)) {
+                continue;
+            }
+            name = name.substring(0, name.length() - SUFFIX.length());
+            if (name.equals(commit) || name.endsWith("-dirty")) {
+                continue;
+            }
+            List<String> hash = git("rev-parse", "--verify", "--quiet", name + "^{commit}");
+            if (hash != null && !hash.isEmpty()) {
+                stored.put(hash.get(0).trim(), name);
+            }
+        }
+        if (stored.isEmpty()) {
+            return null;
+        }
+        List<String> ancestors = git("rev-list", "HEAD");
+        if (ancestors != null) {
+            for (String ancestor : ancestors) {
+                if (stored.containsKey(ancestor.trim())) {
+                    return stored.get(ancestor.trim());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares the samples of the cells with the reference commit. A cell regresses in a measure
+     * if its mean exceeds the reference mean by more than the relative threshold and a one-sided
+     * Welch's t-test is significant at the given level. Higher values are considered worse for
+     * all measures. Repetitions without a solution are ignored, but a cell which found a solution
+     * in the reference and none in the current run regresses as well.
+     * @param cells
+     * @param reference
+     * @param measures the labels of the measures
+     * @param threshold
+     * @param alpha
+     * @return a description of each regression
+     * @throws IOException
+     */
+    public List<String> compare(List<BenchmarkCell> cells,
+                                String reference,
+                                String[] measures,
+                                double threshold,
+                                double alpha) throws IOException {
+        Map<String, Map<String, double[]>> baseline = load(reference);
+        List<String> regressions = new ArrayList<>();
+        for (BenchmarkCell cell : cells) {
+            Map<String, double[]> samples = baseline.get(cell.getKey());
+            if (samples == null) {
+                continue;
+            }
+            boolean solutionLost = false;
+            for (String measure : measures) {
+                double[] before = samples.get(measure);
+                double[] after = cell.getSamples(measure);
+                if (before == null || before.length == 0 || after.length == 0) {
+                    continue;
+                }
+                before = getSolutions(before);
+                after = getSolutions(after);
+                if (before.length != 0 && after.length == 0) {
+                    if (!solutionLost) {
+                        regressions.add(cell.getKey() + ": no solution found, found in " + before.length + " repetitions before");
+                        solutionLost = true;
+                    }
+                    continue;
+                }
+                if (before.length == 0) {
+                    continue;
+                }
+                double meanBefore = getMean(before);
+                double meanAfter = getMean(after);
+                if (meanAfter <= meanBefore * (1d + threshold)) {
+                    continue;
+                }
+                double p = getWelchPValue(before, after);
+                if (p < alpha) {
+                    regressions.add(cell.getKey() + ": " + measure + " " + meanBefore + " -> " + meanAfter + " (p=" + p + ")");
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Loads the samples stored for the commit
+     * @param commit
+     * @return cell key -> measure label -> samples
+     * @throws IOException
+     */
+    private Map<String, Map<String, double[]>> load(String commit) throws IOException {
+        Map<String, Map<String, double[]>> result = new LinkedHashMap<>();
+        File file = getFile(commit);
+        if (!file.exists()) {
+            return result;
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(";");
+                if (fields.length < 2) {
+                    throw new IOException("Invalid line in " + file + ": " + line);
+                }
+                double[] samples = new double[fields.length - 2];
+                for (int i = 0; i < samples.length; i++) {
+                    samples[i] = Double.valueOf(fields[i + 2]);
+                }
+                Map<String, double[]> cell = result.get(fields[0]);
+                if (cell == null) {
+                    cell = new LinkedHashMap<>();
+                    result.put(fields[0], cell);
+                }
+                cell.put(fields[1], samples);
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    /**
+     * @param commit
+     * @return the baseline file of the commit
+     */
+    private File getFile(String commit) {
+        return new File(directory, commit + SUFFIX);
+    }
+
+    /**
+     * Runs git in the working directory
+     * @param arguments
+     * @return the lines of the output, or <code>null</code> if git failed
+     */
+    private static List<String> git(String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            List<String> lines = new ArrayList<>();
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            } finally {
+                reader.close();
+            }
+            return process.waitFor() == 0 ? lines : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * @param samples
+     * @return the samples of the repetitions which found a solution
+     */
+    private static double[] getSolutions(double[] samples) {
+        double[] result = new double[samples.length];
+        int count = 0;
+        for (double sample : samples) {
+            if (!Double.isNaN(sample)) {
+                result[count++] = sample;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static double getMean(double[] values) {
+        double sum = 0d;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double getVariance(double[] values, double mean) {
+        if (values.length < 2) {
+            return 0d;
+        }
+        double sum = 0d;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return sum / (values.length - 1);
+    }
+
+    /**
+     * Returns the p-value of a one-sided Welch's t-test for the hypothesis that the mean of
+     * the second sample is greater than the mean of the first
+     * @param before
+     * @param after
+     * @return
+     */
+    private static double getWelchPValue(double[] before, double[] after) {
+        double meanBefore = getMean(before);
+        double meanAfter = getMean(after);
+        double errorBefore = getVariance(before, meanBefore) / before.length;
+        double errorAfter = getVariance(after, meanAfter) / after.length;
+        double error = errorBefore + errorAfter;
+        if (error == 0d) {
+            return meanAfter > meanBefore ? 0d : 1d;
+        }
+        double t = (meanAfter - meanBefore) / Math.sqrt(error);
+        double df = (error * error) / (errorBefore * errorBefore / Math.max(1, before.length - 1) +
+                                       errorAfter * errorAfter / Math.max(1, after.length - 1));
+        double tail = 0.5d * getRegularizedIncompleteBeta(df / (df + t * t), df / 2d, 0.5d);
+        return t > 0 ? tail : 1d - tail;
+    }
+
+    /**
+     * Regularized incomplete beta function, evaluated with a continued fraction
+     * @param x
+     * @param a
+     * @param b
+     * @return
+     */
+    private static double getRegularizedIncompleteBeta(double x, double a, double b) {
+        if (x <= 0d) {
+            return 0d;
+        }
+        if (x >= 1d) {
+            return 1d;
+        }
+        if (x > (a + 1d) / (a + b + 2d)) {
+            return 1d - getRegularizedIncompleteBeta(1d - x, b, a);
+        }
+        double front = Math.exp(getLogGamma(a + b) - getLogGamma(a) - getLogGamma(b) +
+                                a * Math.log(x) + b * Math.log(1d - x)) / a;
+
+        // modified Lentz's method
+        double tiny = 1e-30;
+        double c = 1d;
+        double d = 1d - (a + b) * x / (a + 1d);
+        d = 1d / (Math.abs(d) < tiny ? tiny : d);
+        double result = d;
+        for (int m = 1; m <= 200; m++) {
+            for (int step = 0; step < 2; step++) {
+                double numerator = step == 0 ? m * (b - m) * x / ((a + 2d * m - 1d) * (a + 2d * m))
+                                             : -(a + m) * (a + b + m) * x / ((a + 2d * m) * (a + 2d * m + 1d));
+                d = 1d + numerator * d;
+                d = 1d / (Math.abs(d) < tiny ? tiny : d);
+                c = 1d + numerator / c;
+                c = Math.abs(c) < tiny ? tiny : c;
+                result *= c * d;
+                if (step == 1 && Math.abs(c * d - 1d) < 1e-12) {
+                    return front * result;
+                }
+            }
+        }
+        return front * result;
+    }
+
+    /**
+     * Logarithm of the gamma function (Lanczos approximation)
+     * @param x
+     * @return
+     */
+    private static double getLogGamma(double x) {
+        double[] coefficients = { 76.18009172947146, -86.50532032941677, 24.01409824083091,
+                                  -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5 };
+        double y = x;
+        double tmp = x + 5.5d;
+        tmp -= (x + 0.5d) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.deidentifier.arx.ProgressListener.Datapoint;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.Algorithm;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkMetric;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkPrivacyCriterium;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.Experiment;
+
+/**
+ * A single cell of the benchmark grid, i.e. one configuration that is run
+ * repeatedly and recorded as one line of a result file. The cell also keeps the
+ * raw samples of all repetitions.
+ */
+public class BenchmarkCell {
+
+    private final Experiment                 experiment;
+    private final Algorithm                  algorithm;
+    private final BenchmarkPrivacyCriterium  criterium;
+    private final BenchmarkDataset           dataset;
+    private final BenchmarkMetric            metric;
+    private final double                     suppression;
+    private final Long                       runtimeLimitMillis;
+    private final BenchmarkCell              runtimeLimitReference;
+    private final String                     resultFileName;
+    private Long                             executionTimeMillis = null;
+    private final Map<String, List<Double>>  samples             = new HashMap<>();
+    private final List<Datapoint[]>          series              = new ArrayList<>();
+
+    /**
+     * @param experiment
+     * @param algorithm
+     * @param criterium
+     * @param dataset
+     * @param metric
+     * @param suppression
+     * @param runtimeLimitMillis
+     * @param resultFileName
+     */
+    public BenchmarkCell(Experiment experiment,
+                         Algorithm algorithm,
+                         BenchmarkPrivacyCriterium criterium,
+                         BenchmarkDataset dataset,
+                         BenchmarkMetric metric,
+                         double suppression,
+                         Long runtimeLimitMillis,
+                         String resultFileName) {
+        this(experiment, algorithm, criterium, dataset, metric, suppression, runtimeLimitMillis, null, resultFileName);
+    }
+
+    /**
+     * Creates a cell whose runtime limit is the execution time of another cell
+     * @param experiment
+     * @param algorithm
+     * @param runtimeLimitReference
+     * @param resultFileName
+     */
+    public BenchmarkCell(Experiment experiment,
+                         Algorithm algorithm,
+                         BenchmarkCell runtimeLimitReference,
+                         String resultFileName) {
+        this(experiment,
+             algorithm,
+             runtimeLimitReference.getCriterium(),
+             runtimeLimitReference.getDataset(),
+             runtimeLimitReference.getMetric(),
+             runtimeLimitReference.getSuppression(),
+             null,
+             runtimeLimitReference,
+             resultFileName);
+    }
+
+    private BenchmarkCell(Experiment experiment,
+                          Algorithm algorithm,
+                          BenchmarkPrivacyCriterium criterium,
+                          BenchmarkDataset dataset,
+                          BenchmarkMetric metric,
+                          double suppression,
+                          Long runtimeLimitMillis,
+                          BenchmarkCell runtimeLimitReference,
+                          String resultFileName) {
+        this.experiment = experiment;
+        this.algorithm = algorithm;
+        this.criterium = criterium;
+        this.dataset = dataset;
+        this.metric = metric;
+        this.suppression = suppression;
+        this.runtimeLimitMillis = runtimeLimitMillis;
+        this.runtimeLimitReference = runtimeLimitReference;
+        this.resultFileName = resultFileName;
+    }
+
+    public Experiment getExperiment() {
+        return experiment;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public BenchmarkPrivacyCriterium getCriterium() {
+        return criterium;
+    }
+
+    public BenchmarkDataset getDataset() {
+        return dataset;
+    }
+
+    public BenchmarkMetric getMetric() {
+        return metric;
+    }
+
+    public double getSuppression() {
+        return suppression;
+    }
+
+    /**
+     * @return the runtime limit or <code>null</code> if the algorithm may run exhaustively
+     */
+    public Long getRuntimeLimitMillis() {
+        return runtimeLimitReference != null ? runtimeLimitReference.getExecutionTimeMillis() : runtimeLimitMillis;
+    }
+
+    /**
+     * @return the cell which has to be run before this cell, as its execution time is this cell's runtime limit
+     */
+    public BenchmarkCell getRuntimeLimitReference() {
+        return runtimeLimitReference;
+    }
+
+    public String getResultFileName() {
+        return resultFileName;
+    }
+
+    /**
+     * @return the execution time of the cell or <code>null</code> if it has not been run yet
+     */
+    public Long getExecutionTimeMillis() {
+        return executionTimeMillis;
+    }
+
+    void setExecutionTimeMillis(long executionTimeMillis) {
+        this.executionTimeMillis = executionTimeMillis;
+    }
+
+    /**
+     * Records the sample of a repetition
+     * @param measure the label of the measure
+     * @param value
+     */
+    void addSample(String measure, double value) {
+        List<Double> values = samples.get(measure);
+        if (values == null) {
+            values = new ArrayList<>();
+            samples.put(measure, values);
+        }
+        values.add(value);
+    }
+
+    /**
+     * @param measure the label of the measure
+     * @return the samples of all repetitions for the measure
+     */
+    public double[] getSamples(String measure) {
+        List<Double> values = samples.get(measure);
+        if (values == null) {
+            return new double[0];
+        }
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Records the progress of a repetition
+     * @param datapoints
+     */
+    void addSeries(Datapoint[] datapoints) {
+        series.add(datapoints);
+    }
+
+    /**
+     * @return the progress of all repetitions
+     */
+    public List<Datapoint[]> getSeries() {
+        return series;
+    }
+
+    /**
+     * @return a key identifying this cell across benchmark runs
+     */
+    public String getKey() {
+        return resultFileName + " / " + toString();
+    }
+
+    /**
+     * @return whether this is a Heurakles cell without runtime limit
+     */
+    public boolean isExhaustive() {
+        return algorithm == Algorithm.HEURAKLES && runtimeLimitMillis == null && runtimeLimitReference == null;
+    }
+
+    /**
+     * Returns the values of the benchmark variables of this cell, in the order of
+     * the columns of the result files
+     * @return
+     */
+    public Object[] getVariables() {
+        return new Object[] { criterium.toString(), dataset.getDatafile().toString(), dataset.getCustomQiCount(), metric.toString(), suppression, algorithm };
+    }
+
+    /**
+     * Returns the id of the cell, which is unique within the grid and can be used to select it
+     */
+    @Override
+    public String toString() {
+        return experiment.name() + " / " + algorithm + (isExhaustive() ? " (exhaustive)" : "") + " / " + criterium + " / " + dataset.getDatafile().toString() + " / " +
+               dataset.getCustomQiCount() + " / " + metric.toString() + " / " + suppression;
+    }
+}
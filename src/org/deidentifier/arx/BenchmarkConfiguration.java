@@ -0,0 +1,485 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.deidentifier.arx.BenchmarkDataset.BenchmarkDatafile;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.Algorithm;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkMetric;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkPrivacyCriterium;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.Experiment;
+
+/**
+ * The configuration of the benchmark grid. Defaults are taken from <code>RiskBasedBenchmarkSetup</code>
+ * and can be overridden by a properties file (<code>--config=file</code>) and by command line
+ * arguments of the form <code>--key=value</code>, which take precedence over the file.
+ */
+public class BenchmarkConfiguration {
+
+    /** Property keys */
+    public static final String EXPERIMENTS                   = "experiments";
+    public static final String DATASETS                      = "datasets";
+    public static final String SELF_COMPARISON_DATAFILES     = "selfComparison.datafiles";
+    public static final String SELF_COMPARISON_QI_COUNTS     = "selfComparison.qiCounts";
+    public static final String SELF_COMPARISON_RUNTIME_LIMIT = "selfComparison.runtimeLimit";
+    public static final String CRITERIA                      = "criteria";
+    public static final String METRICS                       = "metrics";
+    public static final String SUPPRESSION                   = "suppression";
+    public static final String ALGORITHMS                    = "algorithms";
+    public static final String CELL                          = "cell";
+    public static final String REPETITIONS                   = "repetitions";
+    public static final String THREADS                       = "threads";
+    public static final String STREAMING_CHUNK_SIZE          = "streaming.chunkSize";
+    public static final String STREAMING_PARTITIONS          = "streaming.partitions";
+    public static final String STREAMING_SPILL_DIRECTORY     = "streaming.spillDirectory";
+    public static final String OUTPUT_FLASH                  = "output.flash";
+    public static final String OUTPUT_EXHAUSTIVE             = "output.exhaustive";
+    public static final String OUTPUT_SELF                   = "output.self";
+    public static final String OUTPUT_STREAMING              = "output.streaming";
+    public static final String OUTPUT_THROUGHPUT             = "output.throughput";
+    public static final String OUTPUT_RAW                    = "output.raw";
+    public static final String THROUGHPUT_SAMPLES            = "throughput.samples";
+    public static final String THROUGHPUT_SEED               = "throughput.seed";
+    public static final String BASELINE_DIRECTORY            = "baseline.directory";
+    public static final String BASELINE_COMMIT               = "baseline.commit";
+    public static final String BASELINE_REFERENCE            = "baseline.reference";
+    public static final String BASELINE_THRESHOLD            = "baseline.threshold";
+    public static final String BASELINE_ALPHA                = "baseline.alpha";
+    public static final String METRICS_PORT                  = "metrics.port";
+
+    /** Argument for loading a properties file */
+    private static final String CONFIG_ARGUMENT = "--config=";
+
+    /** The properties */
+    private final Properties properties;
+
+    /**
+     * @param properties
+     */
+    private BenchmarkConfiguration(Properties properties) {
+        this.properties = properties;
+        for (String key : properties.stringPropertyNames()) {
+            if (!getKeys().contains(key)) {
+                throw new IllegalArgumentException("Unknown configuration key: " + key);
+            }
+        }
+    }
+
+    /**
+     * Creates a configuration from the command line arguments
+     * @param args
+     * @return
+     * @throws IOException
+     */
+    public static BenchmarkConfiguration parse(String[] args) throws IOException {
+
+        // load file
+        Properties properties = new Properties();
+        for (String arg : args) {
+            if (arg.startsWith(CONFIG_ARGUMENT)) {
+                InputStream input = new FileInputStream(arg.substring(CONFIG_ARGUMENT.length()));
+                try {
+                    properties.load(input);
+                } finally {
+                    input.close();
+                }
+            }
+        }
+
+        // apply overrides
+        for (String arg : args) {
+            if (arg.startsWith(CONFIG_ARGUMENT)) {
+                continue;
+            }
+            int index = arg.indexOf('=');
+            if (!arg.startsWith("--") || index == -1) {
+                throw new IllegalArgumentException("Invalid argument: " + arg + ". Expected --key=value");
+            }
+            properties.setProperty(arg.substring(2, index), arg.substring(index + 1));
+        }
+        return new BenchmarkConfiguration(properties);
+    }
+
+    /**
+     * @return all supported keys
+     */
+    private static Set<String> getKeys() {
+        return new HashSet<>(Arrays.asList(EXPERIMENTS, DATASETS, SELF_COMPARISON_DATAFILES, SELF_COMPARISON_QI_COUNTS,
+                                           SELF_COMPARISON_RUNTIME_LIMIT, CRITERIA, METRICS, SUPPRESSION, ALGORITHMS, CELL,
+                                           REPETITIONS, THREADS, STREAMING_CHUNK_SIZE, STREAMING_PARTITIONS,
+                                           STREAMING_SPILL_DIRECTORY, OUTPUT_FLASH, OUTPUT_EXHAUSTIVE, OUTPUT_SELF,
+                                           OUTPUT_STREAMING, OUTPUT_THROUGHPUT, OUTPUT_RAW, THROUGHPUT_SAMPLES,
+                                           THROUGHPUT_SEED, BASELINE_DIRECTORY, BASELINE_COMMIT, BASELINE_REFERENCE,
+                                           BASELINE_THRESHOLD, BASELINE_ALPHA, METRICS_PORT));
+    }
+
+    /**
+     * Returns whether the experiment should be performed
+     * @param experiment
+     * @return
+     */
+    public boolean isSelected(Experiment experiment) {
+        String[] values = getValues(EXPERIMENTS);
+        if (values == null) {
+            return Arrays.asList(RiskBasedBenchmarkSetup.getExperiments()).contains(experiment);
+        }
+        for (String value : values) {
+            if (Experiment.valueOf(value.toUpperCase()) == experiment) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cells matching the algorithm and cell filters. Cells whose execution
+     * time is needed as a runtime limit by a selected cell are always included.
+     * @param cells
+     * @return
+     * @throws IllegalArgumentException if a cell has been specified that is not part of the selection
+     */
+    public List<BenchmarkCell> select(List<BenchmarkCell> cells) {
+        Set<Algorithm> algorithms = getAlgorithms();
+        String cell = properties.getProperty(CELL);
+        Set<BenchmarkCell> selected = new HashSet<>();
+        for (BenchmarkCell candidate : cells) {
+            if (algorithms.contains(candidate.getAlgorithm()) &&
+                (cell == null || candidate.toString().equals(cell.trim()))) {
+                selected.add(candidate);
+                if (candidate.getRuntimeLimitReference() != null) {
+                    selected.add(candidate.getRuntimeLimitReference());
+                }
+            }
+        }
+        if (cell != null && selected.isEmpty()) {
+            throw new IllegalArgumentException("No cell matches " + CELL + "=" + cell);
+        }
+        List<BenchmarkCell> result = new ArrayList<>();
+        for (BenchmarkCell candidate : cells) {
+            if (selected.contains(candidate)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the datasets for the Flash, streaming and node throughput comparisons, specified as <code>DATAFILE[:qiCount]</code>
+     */
+    public BenchmarkDataset[] getFlashComparisonDatasets() {
+        String[] values = getValues(DATASETS);
+        if (values == null) {
+            return RiskBasedBenchmarkSetup.getFlashComparisonDatasets();
+        }
+        BenchmarkDataset[] result = new BenchmarkDataset[values.length];
+        for (int i = 0; i < values.length; i++) {
+            String[] parts = values[i].split(":");
+            result[i] = new BenchmarkDataset(BenchmarkDatafile.valueOf(parts[0].trim().toUpperCase()),
+                                             parts.length > 1 ? Integer.valueOf(parts[1].trim()) : null);
+        }
+        return result;
+    }
+
+    /**
+     * @return the datafiles for the self comparison
+     */
+    public BenchmarkDatafile[] getSelfComparisonDatafiles() {
+        String[] values = getValues(SELF_COMPARISON_DATAFILES);
+        if (values == null) {
+            return RiskBasedBenchmarkSetup.getSelfComparisonDatafiles();
+        }
+        BenchmarkDatafile[] result = new BenchmarkDatafile[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = BenchmarkDatafile.valueOf(values[i].toUpperCase());
+        }
+        return result;
+    }
+
+    /**
+     * @return the QI counts for the self comparison
+     */
+    public int[] getSelfComparisonQiCounts() {
+        String[] values = getValues(SELF_COMPARISON_QI_COUNTS);
+        if (values == null) {
+            return RiskBasedBenchmarkSetup.getSelfComparisonQiCounts();
+        }
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Integer.valueOf(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the runtime limit for the self comparison
+     */
+    public long getSelfComparisonRuntimeLimitMillis() {
+        String value = properties.getProperty(SELF_COMPARISON_RUNTIME_LIMIT);
+        return value == null ? RiskBasedBenchmarkSetup.getSelfComparisonRuntimeLimitMillis() : Long.valueOf(value.trim());
+    }
+
+    /**
+     * @return the privacy criteria, specified as <code>TYPE:parameter</code>
+     */
+    public BenchmarkPrivacyCriterium[] getPrivacyCriteria() {
+        String[] values = getValues(CRITERIA);
+        if (values == null) {
+            return RiskBasedBenchmarkSetup.getPrivacyCriteria();
+        }
+        BenchmarkPrivacyCriterium[] result = new BenchmarkPrivacyCriterium[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = BenchmarkPrivacyCriterium.parse(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the metrics
+     */
+    public BenchmarkMetric[] getMetrics() {
+        String[] values = getValues(METRICS);
+        if (values == null) {
+            return RiskBasedBenchmarkSetup.getMetrics();
+        }
+        BenchmarkMetric[] result = new BenchmarkMetric[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = BenchmarkMetric.valueOf(values[i].trim().toUpperCase());
+            if (result[i] == BenchmarkMetric.AVERAGE_CLASS_SIZE) {
+                throw new IllegalArgumentException("The average class size is reported by the streaming mode only: " + values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the suppression values
+     */
+    public double[] getSuppressionValues() {
+        String[] values = getValues(SUPPRESSION);
+        if (values == null) {
+            return RiskBasedBenchmarkSetup.getSuppressionValues();
+        }
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Double.valueOf(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the algorithms
+     */
+    public Set<Algorithm> getAlgorithms() {
+        String[] values = getValues(ALGORITHMS);
+        if (values == null) {
+            return EnumSet.allOf(Algorithm.class);
+        }
+        Set<Algorithm> result = new LinkedHashSet<>();
+        for (String value : values) {
+            result.add(Algorithm.valueOf(value.toUpperCase()));
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of repetitions per cell
+     */
+    public int getRepetitions() {
+        return getPositiveInt(REPETITIONS, RiskBasedBenchmarkSetup.getRepetitions());
+    }
+
+    /**
+     * @return the number of threads used for aggregating spill partitions in the streaming mode.
+     * Cells are always run one after another, as parallel runs would distort the timings.
+     */
+    public int getThreads() {
+        return getPositiveInt(THREADS, RiskBasedBenchmarkSetup.getThreads());
+    }
+
+    /**
+     * @return the number of records per chunk in the streaming mode
+     */
+    public int getStreamingChunkSize() {
+        return getPositiveInt(STREAMING_CHUNK_SIZE, RiskBasedBenchmarkSetup.getStreamingChunkSize());
+    }
+
+    /**
+     * @return the number of spill partitions in the streaming mode
+     */
+    public int getStreamingPartitions() {
+        return getPositiveInt(STREAMING_PARTITIONS, RiskBasedBenchmarkSetup.getStreamingPartitions());
+    }
+
+    /**
+     * @return the directory for spill files in the streaming mode
+     */
+    public File getStreamingSpillDirectory() {
+        return new File(properties.getProperty(STREAMING_SPILL_DIRECTORY, System.getProperty("java.io.tmpdir")).trim());
+    }
+
+    /**
+     * @return the result file of the Flash comparison
+     */
+    public String getFlashComparisonOutput() {
+        return properties.getProperty(OUTPUT_FLASH, "resultFlashCompare.csv").trim();
+    }
+
+    /**
+     * @return the result file of the exhaustive Heurakles runs
+     */
+    public String getExhaustiveOutput() {
+        return properties.getProperty(OUTPUT_EXHAUSTIVE, "resultsHeuraklesExhaustive.csv").trim();
+    }
+
+    /**
+     * @return the result file of the self comparison
+     */
+    public String getSelfComparisonOutput() {
+        return properties.getProperty(OUTPUT_SELF, "resultSelfCompare.csv").trim();
+    }
+
+    /**
+     * @return the result file of the streaming comparison
+     */
+    public String getStreamingComparisonOutput() {
+        return properties.getProperty(OUTPUT_STREAMING, "resultStreaming.csv").trim();
+    }
+
+    /**
+     * @return the result file of the node throughput benchmark
+     */
+    public String getNodeThroughputOutput() {
+        return properties.getProperty(OUTPUT_THROUGHPUT, "resultNodeThroughput.csv").trim();
+    }
+
+    /**
+     * @return the number of lattice nodes sampled for the node throughput benchmark
+     */
+    public int getNodeThroughputSamples() {
+        return getPositiveInt(THROUGHPUT_SAMPLES, RiskBasedBenchmarkSetup.getNodeThroughputSamples());
+    }
+
+    /**
+     * @return the seed for sampling lattice nodes
+     */
+    public long getNodeThroughputSeed() {
+        String value = properties.getProperty(THROUGHPUT_SEED);
+        return value == null ? RiskBasedBenchmarkSetup.getNodeThroughputSeed() : Long.valueOf(value.trim());
+    }
+
+    /**
+     * @return the directory for the columnar files containing the raw samples
+     */
+    public File getRawOutputDirectory() {
+        return new File(properties.getProperty(OUTPUT_RAW, "results").trim());
+    }
+
+    /**
+     * @return the directory of the baseline store
+     */
+    public File getBaselineDirectory() {
+        return new File(properties.getProperty(BASELINE_DIRECTORY, "baselines").trim());
+    }
+
+    /**
+     * @return the commit under which the results are stored, by default the current git commit
+     */
+    public String getBaselineCommit() {
+        String value = properties.getProperty(BASELINE_COMMIT);
+        return value == null ? BenchmarkBaseline.getGitCommit() : value.trim();
+    }
+
+    /**
+     * @return the commit to compare with or <code>null</code> for the nearest stored ancestor
+     */
+    public String getBaselineReference() {
+        String value = properties.getProperty(BASELINE_REFERENCE);
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * @return the relative increase of a mean above which a cell is considered to regress
+     */
+    public double getBaselineThreshold() {
+        return Double.valueOf(properties.getProperty(BASELINE_THRESHOLD, "0.1").trim());
+    }
+
+    /**
+     * @return the significance level of the regression test
+     */
+    public double getBaselineAlpha() {
+        return Double.valueOf(properties.getProperty(BASELINE_ALPHA, "0.05").trim());
+    }
+
+    /**
+     * @return the port of the metrics endpoint on localhost or <code>null</code> if it is disabled
+     */
+    public Integer getMetricsPort() {
+        String value = properties.getProperty(METRICS_PORT);
+        return value == null ? null : getPositiveInt(METRICS_PORT, 0);
+    }
+
+    /**
+     * Returns the comma-separated values of the property or <code>null</code> if it is not set
+     * @param key
+     * @return
+     */
+    private String[] getValues(String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>();
+        for (String element : value.split(",")) {
+            if (!element.trim().isEmpty()) {
+                result.add(element.trim());
+            }
+        }
+        return result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * Returns the value of an integer property, which must be positive
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    private int getPositiveInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        int result = Integer.valueOf(value.trim());
+        if (result <= 0) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+        return result;
+    }
+}
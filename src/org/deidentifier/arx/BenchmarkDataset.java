@@ -105,13 +105,20 @@ import org.deidentifier.arx.aggregates.HierarchyBuilder.Type;
          */
 
         public Data toArxData() throws IOException {
-            Data data = Data.create("data/" + datafile.getBaseStringForFilename() + ".csv", ';');
+            Data data = Data.create(getDataFilePath(), ';');
             for (String qi : getQuasiIdentifyingAttributes()) {
             	data.getDefinition().setAttributeType(qi, loadHierarchy(qi));
             }
             return data;
         }
 
+        /**
+         * @return the path of the csv file containing the data
+         */
+        String getDataFilePath() {
+            return "data/" + datafile.getBaseStringForFilename() + ".csv";
+        }
+
         /**
          * Returns the generalization hierarchy for the dataset and attribute
          * @param dataset
@@ -120,14 +127,27 @@ import org.deidentifier.arx.aggregates.HierarchyBuilder.Type;
          * @throws IOException
          */
         private Hierarchy loadHierarchy(String attribute) throws IOException {
+            return loadHierarchy(attribute, null);
+        }
+
+        /**
+         * Returns the generalization hierarchy for the dataset and attribute. Interval-based
+         * hierarchies are prepared with the given distinct values. If they are <code>null</code>,
+         * the distinct values are obtained by loading the complete datafile.
+         * @param attribute
+         * @param distinctValues
+         * @return
+         * @throws IOException
+         */
+        Hierarchy loadHierarchy(String attribute, String[] distinctValues) throws IOException {
         	if (!datafile.equals(BenchmarkDatafile.ACS13)) {
         		return Hierarchy.create("hierarchies/" + datafile.getBaseStringForFilename() + "_hierarchy_" + attribute + ".csv", ';');
         	} else {
-        		return loadACS13Hierarchy("hierarchies/" + datafile.getBaseStringForFilename() + "_hierarchy_", attribute);
+        		return loadACS13Hierarchy("hierarchies/" + datafile.getBaseStringForFilename() + "_hierarchy_", attribute, distinctValues);
         	}
         }
 
-        private static Hierarchy loadACS13Hierarchy(String fileBaseName, String attribute) throws IOException {
+        private static Hierarchy loadACS13Hierarchy(String fileBaseName, String attribute, String[] distinctValues) throws IOException {
             String filePath = fileBaseName + ACS13_SEMANTIC_QI.valueOf(attribute).fileBaseName();
             switch (ACS13_SEMANTIC_QI.valueOf(attribute).getType()) {
             case INTERVAL:
@@ -135,15 +155,17 @@ import org.deidentifier.arx.aggregates.HierarchyBuilder.Type;
                 HierarchyBuilder<?> loaded = HierarchyBuilder.create(filePath);
                 if (loaded.getType() == Type.INTERVAL_BASED) {
                     HierarchyBuilderIntervalBased<?> builder = (HierarchyBuilderIntervalBased<?>) loaded;
-                    Data data = Data.create("data/" + BenchmarkDatafile.ACS13.getBaseStringForFilename() + ".csv", ';');
-                    int index = data
-                                    .getHandle()
-                                    .getColumnIndexOf(attribute);
-                    String[] dataArray = data
+                    if (distinctValues == null) {
+                        Data data = Data.create("data/" + BenchmarkDatafile.ACS13.getBaseStringForFilename() + ".csv", ';');
+                        int index = data
+                                        .getHandle()
+                                        .getColumnIndexOf(attribute);
+                        distinctValues = data
                                              .getHandle()
                                              .getStatistics()
                                              .getDistinctValues(index);
-                    builder.prepare(dataArray);
+                    }
+                    builder.prepare(distinctValues);
                     return builder.build();
                 } else {
                     throw new RuntimeException("Inconsistent hierarchy types. Expected: interval-based, found: " + loaded.getType());
@@ -162,7 +184,7 @@ import org.deidentifier.arx.aggregates.HierarchyBuilder.Type;
          * @param dataset
          * @return
          */
-        private String[] getQuasiIdentifyingAttributes() {
+        String[] getQuasiIdentifyingAttributes() {
             switch (datafile) {
             case ADULT:
                 return customizeQis ((new String[] {	"age",
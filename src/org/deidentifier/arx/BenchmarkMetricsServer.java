@@ -0,0 +1,127 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exposes the progress of a benchmark run and JVM memory and GC statistics in the
+ * Prometheus text format at <code>http://localhost:port/metrics</code>. The server
+ * only listens on the loopback interface.
+ */
+public class BenchmarkMetricsServer {
+
+    /** The server */
+    private final HttpServer        server;
+    /** The progress */
+    private final BenchmarkProgress progress;
+
+    /**
+     * Starts the server
+     * @param port
+     * @param progress
+     * @throws IOException
+     */
+    public BenchmarkMetricsServer(int port, BenchmarkProgress progress) throws IOException {
+        this.progress = progress;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = getMetrics().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream output = exchange.getResponseBody();
+                try {
+                    output.write(body);
+                } finally {
+                    output.close();
+                }
+            }
+        });
+        this.server.start();
+    }
+
+    /**
+     * Stops the server
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * @return the metrics in the Prometheus text format
+     */
+    String getMetrics() {
+        StringBuilder builder = new StringBuilder();
+        String cell = progress.getCurrentCell();
+        append(builder, "benchmark_cells_total", "gauge", "Number of cells in the run", progress.getTotalCells());
+        append(builder, "benchmark_cells_completed", "gauge", "Number of completed cells", progress.getCompletedCells());
+        append(builder, "benchmark_cells_remaining", "gauge", "Number of remaining cells", progress.getTotalCells() - progress.getCompletedCells());
+        append(builder, "benchmark_eta_seconds", "gauge", "Estimated remaining time", progress.getEstimatedRemainingSeconds());
+        if (cell != null) {
+            builder.append("# HELP benchmark_current_cell_info The cell currently running\n");
+            builder.append("# TYPE benchmark_current_cell_info gauge\n");
+            builder.append("benchmark_current_cell_info{cell=\"").append(escape(cell)).append("\"} 1\n");
+        }
+        append(builder, "benchmark_current_cell_elapsed_seconds", "gauge", "Time spent in the current cell", progress.getCellElapsedSeconds());
+        append(builder, "benchmark_current_repetition", "gauge", "Repetition of the current cell", progress.getRepetition());
+        append(builder, "benchmark_current_repetition_progress", "gauge", "Progress of the current repetition reported by ARX", progress.getRepetitionProgress());
+        append(builder, "benchmark_best_information_loss", "gauge", "Best information loss found in the current cell, updated after each repetition", progress.getBestLoss());
+        append(builder, "benchmark_nodes_checked", "gauge", "Lattice nodes checked in the current cell, updated after each repetition", progress.getNodesChecked());
+        append(builder, "benchmark_nodes_checked_per_second", "gauge", "Lattice nodes checked per second in the current cell", progress.getNodesCheckedPerSecond());
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        append(builder, "jvm_memory_heap_used_bytes", "gauge", "Used heap memory", heap.getUsed());
+        append(builder, "jvm_memory_heap_committed_bytes", "gauge", "Committed heap memory", heap.getCommitted());
+        append(builder, "jvm_memory_heap_max_bytes", "gauge", "Maximal heap memory", heap.getMax());
+
+        builder.append("# HELP jvm_gc_collections_total Number of garbage collections\n");
+        builder.append("# TYPE jvm_gc_collections_total counter\n");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            builder.append("jvm_gc_collections_total{gc=\"").append(escape(gc.getName())).append("\"} ").append(gc.getCollectionCount()).append('\n');
+        }
+        builder.append("# HELP jvm_gc_collection_seconds_total Time spent in garbage collections\n");
+        builder.append("# TYPE jvm_gc_collection_seconds_total counter\n");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            builder.append("jvm_gc_collection_seconds_total{gc=\"").append(escape(gc.getName())).append("\"} ").append(gc.getCollectionTime() / 1000d).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, String name, String type, String help, double value) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        builder.append(name).append(' ').append(Double.isNaN(value) ? "NaN" : String.valueOf(value)).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+/**
+ * The progress of a benchmark run. It is updated by the benchmark thread and
+ * read by the metrics endpoint, so all accessors are synchronized.
+ */
+public class BenchmarkProgress {
+
+    /** Total number of cells */
+    private int    totalCells         = 0;
+    /** Number of completed cells */
+    private int    completedCells     = 0;
+    /** Time spent in completed cells */
+    private long   completedNanos     = 0;
+    /** The current cell */
+    private String currentCell        = null;
+    /** Start of the current cell */
+    private long   cellStart          = 0;
+    /** Current repetition */
+    private int    repetition         = 0;
+    /** Best information loss found in the current cell, NaN if none */
+    private double bestLoss           = Double.NaN;
+    /** Number of lattice nodes checked in the current cell */
+    private long   nodesChecked       = 0;
+    /** Progress of the current repetition as reported by ARX, NaN if unknown */
+    private double repetitionProgress = Double.NaN;
+
+    /**
+     * @param totalCells
+     */
+    public synchronized void start(int totalCells) {
+        this.totalCells = totalCells;
+        this.completedCells = 0;
+        this.completedNanos = 0;
+    }
+
+    /**
+     * @param cell
+     */
+    public synchronized void startCell(BenchmarkCell cell) {
+        currentCell = cell.toString();
+        cellStart = System.nanoTime();
+        repetition = 0;
+        bestLoss = Double.NaN;
+        nodesChecked = 0;
+        repetitionProgress = Double.NaN;
+    }
+
+    /**
+     * @param repetition
+     */
+    public synchronized void startRepetition(int repetition) {
+        this.repetition = repetition;
+        this.repetitionProgress = Double.NaN;
+    }
+
+    /**
+     * Reports the progress of the current repetition, as reported by the anonymizer
+     * @param progress in [0, 1]
+     */
+    public synchronized void repetitionProgress(double progress) {
+        this.repetitionProgress = progress;
+    }
+
+    /**
+     * Reports a solution. Lower losses are better.
+     * @param loss
+     */
+    public synchronized void solutionFound(double loss) {
+        if (Double.isNaN(bestLoss) || loss < bestLoss) {
+            bestLoss = loss;
+        }
+    }
+
+    /**
+     * @param nodes
+     */
+    public synchronized void nodesChecked(long nodes) {
+        nodesChecked += nodes;
+    }
+
+    public synchronized void endCell() {
+        completedCells++;
+        completedNanos += System.nanoTime() - cellStart;
+        currentCell = null;
+    }
+
+    public synchronized int getTotalCells() {
+        return totalCells;
+    }
+
+    public synchronized int getCompletedCells() {
+        return completedCells;
+    }
+
+    /**
+     * @return the current cell or <code>null</code> if no cell is running
+     */
+    public synchronized String getCurrentCell() {
+        return currentCell;
+    }
+
+    public synchronized int getRepetition() {
+        return repetition;
+    }
+
+    /**
+     * @return the time spent in the current cell in seconds
+     */
+    public synchronized double getCellElapsedSeconds() {
+        return currentCell == null ? 0d : (System.nanoTime() - cellStart) / 1e9;
+    }
+
+    public synchronized double getBestLoss() {
+        return bestLoss;
+    }
+
+    public synchronized double getRepetitionProgress() {
+        return repetitionProgress;
+    }
+
+    public synchronized long getNodesChecked() {
+        return nodesChecked;
+    }
+
+    /**
+     * @return the number of nodes checked per second in the current cell
+     */
+    public synchronized double getNodesCheckedPerSecond() {
+        double elapsed = getCellElapsedSeconds();
+        return elapsed == 0d ? 0d : nodesChecked / elapsed;
+    }
+
+    /**
+     * @return the estimated remaining time in seconds based on the average time per completed cell, NaN if unknown
+     */
+    public synchronized double getEstimatedRemainingSeconds() {
+        if (completedCells == 0) {
+            return Double.NaN;
+        }
+        double perCell = completedNanos / 1e9 / completedCells;
+        return Math.max(0d, perCell * (totalCells - completedCells) - getCellElapsedSeconds());
+    }
+}
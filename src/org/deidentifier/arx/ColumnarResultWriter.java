@@ -0,0 +1,202 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Writes tables into a compact, self-describing columnar file. All numbers are big-endian:
+ *
+ * <pre>
+ * file     := "ARXC" version:int32 metadata tables:int32 table*
+ * metadata := entries:int32 (key:utf value:utf)*
+ * table    := name:utf rows:int32 columns:int32 column*
+ * column   := name:utf type:int8 data
+ * data     := int32[rows] | int64[rows] | float64[rows]          for types 0, 1, 2
+ *           | values:int32 value:utf[values] code:int32[rows]  for type 3 (dictionary-encoded strings)
+ * </pre>
+ *
+ * Strings are written as by <code>DataOutputStream.writeUTF</code>. Fixed-width columns can be read
+ * directly as arrays, e.g. with <code>numpy.frombuffer(..., dtype='>f8')</code>.
+ */
+public class ColumnarResultWriter {
+
+    /** Magic number */
+    private static final byte[] MAGIC   = new byte[] { 'A', 'R', 'X', 'C' };
+    /** Version of the format */
+    private static final int    VERSION = 1;
+
+    /** Column types */
+    private static final byte   INT32   = 0;
+    private static final byte   INT64   = 1;
+    private static final byte   FLOAT64 = 2;
+    private static final byte   STRING  = 3;
+
+    /**
+     * A table that is filled row by row
+     */
+    public static class Table {
+
+        private final String             name;
+        private final List<String>       names   = new ArrayList<>();
+        private final List<Byte>         types   = new ArrayList<>();
+        private final List<List<Object>> columns = new ArrayList<>();
+        private int                      rows    = 0;
+
+        /**
+         * @param name
+         */
+        public Table(String name) {
+            this.name = name;
+        }
+
+        public Table addInt32Column(String name) {
+            return addColumn(name, INT32);
+        }
+
+        public Table addInt64Column(String name) {
+            return addColumn(name, INT64);
+        }
+
+        public Table addFloat64Column(String name) {
+            return addColumn(name, FLOAT64);
+        }
+
+        public Table addStringColumn(String name) {
+            return addColumn(name, STRING);
+        }
+
+        /**
+         * Adds a row. Values must be given in the order of the columns.
+         * @param values
+         */
+        public void addRow(Object... values) {
+            if (values.length != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values, found " + values.length);
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    throw new IllegalArgumentException("Null value for column " + names.get(i));
+                }
+                columns.get(i).add(values[i]);
+            }
+            rows++;
+        }
+
+        private Table addColumn(String name, byte type) {
+            if (rows != 0) {
+                throw new IllegalStateException("Columns must be added before rows");
+            }
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate column: " + name);
+            }
+            names.add(name);
+            types.add(type);
+            columns.add(new ArrayList<Object>());
+            return this;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeUTF(name);
+            output.writeInt(rows);
+            output.writeInt(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                output.writeUTF(names.get(i));
+                output.writeByte(types.get(i));
+                List<Object> column = columns.get(i);
+                switch (types.get(i)) {
+                case INT32:
+                    for (Object value : column) {
+                        output.writeInt(((Number) value).intValue());
+                    }
+                    break;
+                case INT64:
+                    for (Object value : column) {
+                        output.writeLong(((Number) value).longValue());
+                    }
+                    break;
+                case FLOAT64:
+                    for (Object value : column) {
+                        output.writeDouble(((Number) value).doubleValue());
+                    }
+                    break;
+                case STRING:
+                    Map<String, Integer> dictionary = new LinkedHashMap<>();
+                    for (Object value : column) {
+                        if (!dictionary.containsKey(value.toString())) {
+                            dictionary.put(value.toString(), dictionary.size());
+                        }
+                    }
+                    output.writeInt(dictionary.size());
+                    for (String value : dictionary.keySet()) {
+                        output.writeUTF(value);
+                    }
+                    for (Object value : column) {
+                        output.writeInt(dictionary.get(value.toString()));
+                    }
+                    break;
+                default:
+                    throw new RuntimeException("Invalid column type");
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the tables into a file. An existing file is replaced only after the new one has
+     * been written completely.
+     * @param file
+     * @param metadata
+     * @param tables
+     * @throws IOException
+     */
+    public static void write(File file, Map<String, String> metadata, Table... tables) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            output.write(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(metadata.size());
+            for (Entry<String, String> entry : metadata.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
+            }
+            output.writeInt(tables.length);
+            for (Table table : tables) {
+                table.write(output);
+            }
+        } finally {
+            output.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
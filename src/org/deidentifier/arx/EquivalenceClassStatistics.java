@@ -0,0 +1,132 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Statistics about the equivalence classes of a transformation, i.e. the
+ * histogram of class sizes. This is everything the k-anonymity and the
+ * uniqueness checks need, so it can be computed without keeping the records.
+ */
+public class EquivalenceClassStatistics {
+
+    /** The transformation */
+    private final int[]                  transformation;
+    /** Class size -> number of classes with this size */
+    private final TreeMap<Integer, Long> sizes      = new TreeMap<>();
+    /** Number of records */
+    private long                         numRecords = 0;
+    /** Number of classes */
+    private long                         numClasses = 0;
+
+    /**
+     * @param transformation
+     */
+    EquivalenceClassStatistics(int[] transformation) {
+        this.transformation = transformation;
+    }
+
+    /**
+     * Registers an equivalence class
+     * @param size
+     */
+    void addClass(int size) {
+        Long count = sizes.get(size);
+        sizes.put(size, count == null ? 1L : count + 1L);
+        numRecords += size;
+        numClasses++;
+    }
+
+    /**
+     * @return the generalization levels this statistics has been computed for
+     */
+    public int[] getTransformation() {
+        return transformation;
+    }
+
+    /**
+     * @return the number of records
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * @return the number of equivalence classes
+     */
+    public long getNumClasses() {
+        return numClasses;
+    }
+
+    /**
+     * @return the average size of all equivalence classes, including classes that would be
+     *         suppressed. This differs from ARX's AECS, which counts suppressed records as one class.
+     */
+    public double getAverageClassSize() {
+        return numClasses == 0 ? 0d : (double) numRecords / (double) numClasses;
+    }
+
+    /**
+     * @param k
+     * @return the number of records in classes with less than k records
+     */
+    public long getNumRecordsInClassesSmallerThan(int k) {
+        long result = 0;
+        for (Entry<Integer, Long> entry : sizes.headMap(k).entrySet()) {
+            result += entry.getKey() * entry.getValue();
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of sample uniques
+     */
+    public long getNumSampleUniques() {
+        Long uniques = sizes.get(1);
+        return uniques == null ? 0L : uniques;
+    }
+
+    /**
+     * Returns whether the transformation is k-anonymous when suppressing at most the given
+     * fraction of records
+     * @param k
+     * @param maxOutliers
+     * @return
+     */
+    public boolean isKAnonymous(int k, double maxOutliers) {
+        return getNumRecordsInClassesSmallerThan(k) <= (long) Math.floor(maxOutliers * numRecords);
+    }
+
+    /**
+     * Returns whether the fraction of unique records is below the threshold when suppressing
+     * at most the given fraction of records. Every population unique is a sample unique, so
+     * this is a stricter criterium than population uniqueness and must not be compared with it.
+     * @param threshold
+     * @param maxOutliers
+     * @return
+     */
+    public boolean isUnique(double threshold, double maxOutliers) {
+        if (numRecords == 0) {
+            return true;
+        }
+        long remaining = Math.max(0L, getNumSampleUniques() - (long) Math.floor(maxOutliers * numRecords));
+        return (double) remaining / (double) numRecords <= threshold;
+    }
+}
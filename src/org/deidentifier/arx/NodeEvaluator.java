@@ -0,0 +1,155 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.deidentifier.arx.ARXLattice.ARXNode;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.Algorithm;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkMetric;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkPrivacyCriterium;
+
+/**
+ * Measures the cost of checking single lattice nodes with ARX, independently of the search
+ * strategy. The dataset is anonymized once to obtain the lattice. Afterwards, each node is
+ * checked by requesting its output from the result: ARX's node checker applies the
+ * transformation, evaluates the privacy criterium (with the population model of the
+ * <code>PopulationUniqueness</code> criterium) and computes the metric, as configured by
+ * <code>RiskBasedBenchmarkSetup</code>.
+ */
+public class NodeEvaluator {
+
+    /** Number of nodes evaluated before measuring */
+    private static final int    WARMUP_NODES = 10;
+
+    /** The result providing access to the node checker */
+    private final ARXResult     result;
+    /** All nodes of the lattice */
+    private final List<ARXNode> nodes;
+
+    /**
+     * The latencies measured for a set of nodes
+     */
+    public static class Throughput {
+
+        private final double p50;
+        private final double p99;
+        private final double nodesPerSecond;
+
+        Throughput(long[] latencies) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long latency : sorted) {
+                total += latency;
+            }
+            this.p50 = getPercentile(sorted, 0.5d);
+            this.p99 = getPercentile(sorted, 0.99d);
+            this.nodesPerSecond = total == 0 ? 0d : sorted.length / (total / 1e9);
+        }
+
+        /**
+         * @return the median latency of a node check in nanoseconds
+         */
+        public double getP50() {
+            return p50;
+        }
+
+        /**
+         * @return the 99th percentile of the latency of a node check in nanoseconds
+         */
+        public double getP99() {
+            return p99;
+        }
+
+        public double getNodesPerSecond() {
+            return nodesPerSecond;
+        }
+
+        private static double getPercentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0d;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+
+    /**
+     * Anonymizes the dataset without suppression to obtain the lattice
+     * @param dataset
+     * @param criterium
+     * @param metric
+     * @throws IOException
+     */
+    public NodeEvaluator(BenchmarkDataset dataset, BenchmarkPrivacyCriterium criterium, BenchmarkMetric metric) throws IOException {
+        ARXConfiguration config = RiskBasedBenchmarkSetup.prepareConfiguration(Algorithm.FLASH, criterium, metric, 0d, null);
+        this.result = new ARXAnonymizer().anonymize(dataset.toArxData(), config);
+        this.nodes = new ArrayList<>();
+        for (ARXNode[] level : result.getLattice().getLevels()) {
+            nodes.addAll(Arrays.asList(level));
+        }
+    }
+
+    /**
+     * Returns a fixed set of randomly chosen, distinct nodes
+     * @param count the number of nodes, at most the size of the lattice
+     * @param seed
+     * @return
+     */
+    public ARXNode[] getSampleNodes(int count, long seed) {
+        List<ARXNode> shuffled = new ArrayList<>(nodes);
+        Collections.shuffle(shuffled, new Random(seed));
+        List<ARXNode> result = shuffled.subList(0, Math.min(count, shuffled.size()));
+        return result.toArray(new ARXNode[result.size()]);
+    }
+
+    /**
+     * Measures the latency of checking each of the nodes
+     * @param nodes
+     * @return
+     */
+    public Throughput measure(ARXNode[] nodes) {
+        for (int i = 0; i < Math.min(WARMUP_NODES, nodes.length); i++) {
+            evaluate(nodes[i]);
+        }
+        long[] latencies = new long[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            latencies[i] = evaluate(nodes[i]);
+        }
+        return new Throughput(latencies);
+    }
+
+    /**
+     * Checks a single node. The output is released afterwards, so that the next node
+     * can be checked without copying the data.
+     * @param node
+     * @return the latency in nanoseconds
+     */
+    private long evaluate(ARXNode node) {
+        long start = System.nanoTime();
+        DataHandle output = result.getOutput(node, false);
+        long latency = System.nanoTime() - start;
+        output.release();
+        return latency;
+    }
+}
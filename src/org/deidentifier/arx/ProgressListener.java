@@ -21,25 +21,58 @@ public class ProgressListener {
         public InformationLoss<?> getLoss() {
             return loss;
         }
+
+        /**
+         * @return the value of the information loss as a double, NaN if there is none
+         */
+        public double getLossValue() {
+            return getValue(loss);
+        }
     }
     
     private List<Datapoint> datapoints = new ArrayList<>();
+    private BenchmarkProgress progress = null;
     
     ProgressListener() {
         datapoints.add(new Datapoint(System.currentTimeMillis(), null));
     }
     
+    /**
+     * @param progress is informed about each solution found
+     */
+    ProgressListener(BenchmarkProgress progress) {
+        this();
+        this.progress = progress;
+    }
+    
     public void transformationFound(long time, InformationLoss<?> loss) {
-        datapoints.add(new Datapoint(time, loss));
+        Datapoint datapoint = new Datapoint(time, loss);
+        datapoints.add(datapoint);
+        if (progress != null) {
+            progress.solutionFound(datapoint.getLossValue());
+        }
     }
     
     Datapoint[] getDatapoints () {
-        return (Datapoint[])datapoints.toArray();
+        return datapoints.toArray(new Datapoint[datapoints.size()]);
     }
     
     boolean solutionFound() {
         return datapoints.size() > 1;
     }
     
+    /**
+     * @param loss
+     * @return the value of the information loss as a double, NaN if there is none or if it
+     *         is not a single number, e.g. for multi-dimensional metrics
+     */
+    static double getValue(InformationLoss<?> loss) {
+        if (loss == null) {
+            return Double.NaN;
+        }
+        Object value = loss.getValue();
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+    
     
 }
@@ -17,17 +17,28 @@
 
 package org.deidentifier.arx;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.deidentifier.arx.ARXLattice.ARXNode;
 import org.deidentifier.arx.ProgressListener.Datapoint;
 import org.deidentifier.arx.BenchmarkDataset.BenchmarkDatafile;
 import org.deidentifier.arx.RiskBasedBenchmarkSetup.Algorithm;
 import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkMetric;
 import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkPrivacyCriterium;
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.Experiment;
 import org.deidentifier.arx.metric.InformationLoss;
 
 import de.linearbits.subframe.Benchmark;
@@ -42,7 +53,7 @@ import de.linearbits.subframe.io.CSVLine;
 public class RiskBasedBenchmarkMain {
     
     /** Repetitions */
-    private static final int       REPETITIONS       = 2;
+    private static int       repetitions;
     
     private static final double NO_SOLUTION_FOUND = 0.0;
     
@@ -64,77 +75,325 @@ public class RiskBasedBenchmarkMain {
     /** Label for info loss minimum */
     public static final int         INFORMATION_LOSS_MINIMUM    = BENCHMARK.addMeasure("Information loss minimum");
 
-    static {
-        BENCHMARK.addAnalyzer(EXECUTION_TIME,           new BufferedArithmeticMeanAnalyzer(REPETITIONS));
-        BENCHMARK.addAnalyzer(DISCOVERY_TIME,           new BufferedArithmeticMeanAnalyzer(REPETITIONS));
-        BENCHMARK.addAnalyzer(INFORMATION_LOSS_MINIMUM, new BufferedArithmeticMeanAnalyzer(REPETITIONS));
-    }        
+    /** The progress of the run */
+    private static final BenchmarkProgress PROGRESS             = new BenchmarkProgress();
+
+    /** The labels of the measures, indexed by measure */
+    private static final String[]   MEASURE_LABELS              = new String[] { "Execution time", "Solution discovery time", "Information loss minimum" };
+
+    /** The benchmark instance for the node throughput benchmark */
+    private static final Benchmark  THROUGHPUT_BENCHMARK        = new Benchmark(BENCHMARK_VARIABLES);
+
+    /** Label for the median latency of a node check */
+    public static final int         NODE_LATENCY_P50            = THROUGHPUT_BENCHMARK.addMeasure("Node check latency p50");
+    /** Label for the 99th percentile of the latency of a node check */
+    public static final int         NODE_LATENCY_P99            = THROUGHPUT_BENCHMARK.addMeasure("Node check latency p99");
+    /** Label for the number of nodes checked per second */
+    public static final int         NODES_PER_SECOND            = THROUGHPUT_BENCHMARK.addMeasure("Nodes per second");
+
+    /** The labels of the node throughput measures, indexed by measure */
+    private static final String[]   THROUGHPUT_LABELS           = new String[] { "Node check latency p50", "Node check latency p99", "Nodes per second" };
+    /** The labels of the measures compared with the baseline, for which higher values are worse */
+    private static final String[]   BASELINE_LABELS             = new String[] { "Execution time", "Solution discovery time", "Information loss minimum",
+                                                                                 "Node check latency p50", "Node check latency p99" };
 
     /**
      * Main entry point
      * 
-     * @param args
+     * @param args see <code>BenchmarkConfiguration</code>
      * @throws IOException
      */
     public static void main(String[] args) throws IOException {
-    	
-    	System.out.println("Starting Flash comparison");
-        performHeuraklesFlashComparison();
         
-        System.out.println("\nStarting self comparison");
-        performHeuraklesSelfComparison();
+        BenchmarkConfiguration config = BenchmarkConfiguration.parse(args);
+        repetitions = config.getRepetitions();
+        BENCHMARK.addAnalyzer(EXECUTION_TIME,           new BufferedArithmeticMeanAnalyzer(repetitions));
+        BENCHMARK.addAnalyzer(DISCOVERY_TIME,           new BufferedArithmeticMeanAnalyzer(repetitions));
+        BENCHMARK.addAnalyzer(INFORMATION_LOSS_MINIMUM, new BufferedArithmeticMeanAnalyzer(repetitions));
+        THROUGHPUT_BENCHMARK.addAnalyzer(NODE_LATENCY_P50, new BufferedArithmeticMeanAnalyzer(repetitions));
+        THROUGHPUT_BENCHMARK.addAnalyzer(NODE_LATENCY_P99, new BufferedArithmeticMeanAnalyzer(repetitions));
+        THROUGHPUT_BENCHMARK.addAnalyzer(NODES_PER_SECOND, new BufferedArithmeticMeanAnalyzer(repetitions));
+        
+        // plan the grid
+        List<BenchmarkCell> cells = new ArrayList<>();
+        if (config.isSelected(Experiment.FLASH_COMPARISON)) {
+            planHeuraklesFlashComparison(config, cells);
+        }
+        if (config.isSelected(Experiment.SELF_COMPARISON)) {
+            planHeuraklesSelfComparison(config, cells);
+        }
+        if (config.isSelected(Experiment.STREAMING_COMPARISON)) {
+            planStreamingComparison(config, cells);
+        }
+        if (config.isSelected(Experiment.NODE_THROUGHPUT)) {
+            planNodeThroughputBenchmark(config, cells);
+        }
+        
+        // check the reference before running, so that a misconfigured reference fails early
+        List<BenchmarkCell> selected = config.select(cells);
+        String commit = config.getBaselineCommit();
+        BenchmarkBaseline baseline = new BenchmarkBaseline(config.getBaselineDirectory(), commit);
+        String reference = config.getBaselineReference();
+        if (reference != null && !baseline.isStored(reference)) {
+            throw new IllegalArgumentException("No baseline stored for " + BenchmarkConfiguration.BASELINE_REFERENCE + "=" + reference);
+        }
+        
+        // run the selected cells, the raw samples are written after each cell
+        File rawFile = new File(config.getRawOutputDirectory(), new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-" + commit + ".arxc");
+        PROGRESS.start(selected.size());
+        BenchmarkMetricsServer server = null;
+        if (config.getMetricsPort() != null) {
+            server = new BenchmarkMetricsServer(config.getMetricsPort(), PROGRESS);
+            System.out.println("Serving metrics at http://localhost:" + config.getMetricsPort() + "/metrics");
+        }
+        try {
+            Experiment experiment = null;
+            for (int i = 0; i < selected.size(); i++) {
+                BenchmarkCell cell = selected.get(i);
+                if (cell.getExperiment() != experiment) {
+                    System.out.println((experiment == null ? "" : "\n") + "Starting " + cell.getExperiment());
+                    experiment = cell.getExperiment();
+                }
+                PROGRESS.startCell(cell);
+                if (cell.getAlgorithm() == Algorithm.STREAMING) {
+                    runAndRecordStreamingBenchmark(cell, config);
+                } else if (cell.getAlgorithm() == Algorithm.NODE_EVALUATION) {
+                    runAndRecordNodeThroughputBenchmark(cell, config);
+                } else {
+                    cell.setExecutionTimeMillis(runAndRecordBenchmark(cell, server != null));
+                }
+                PROGRESS.endCell();
+                writeRawResults(selected.subList(0, i + 1), commit, rawFile);
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+        
+        // compare with the baseline and store the results
+        if (reference == null) {
+            reference = baseline.getLatestReference();
+        }
+        List<String> regressions = new ArrayList<>();
+        if (reference == null) {
+            System.out.println("\nNo baseline to compare with");
+        } else {
+            System.out.println("\nComparing with baseline " + reference);
+            regressions = baseline.compare(selected, reference, BASELINE_LABELS, config.getBaselineThreshold(), config.getBaselineAlpha());
+            for (String regression : regressions) {
+                System.out.println("Regression: " + regression);
+            }
+        }
+        baseline.store(selected, getAllLabels());
         
         System.out.println("\ndone.");
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes the raw samples and the progress of all repetitions of the cells into a columnar file
+     * @param cells
+     * @param commit
+     * @param file
+     * @throws IOException
+     */
+    private static void writeRawResults(List<BenchmarkCell> cells, String commit, File file) throws IOException {
+        
+        // one row per repetition
+        ColumnarResultWriter.Table samples = new ColumnarResultWriter.Table("samples");
+        samples.addStringColumn("Experiment")
+               .addStringColumn(BENCHMARK_VARIABLES[0])
+               .addStringColumn(BENCHMARK_VARIABLES[1])
+               .addInt32Column(BENCHMARK_VARIABLES[2])
+               .addStringColumn(BENCHMARK_VARIABLES[3])
+               .addFloat64Column(BENCHMARK_VARIABLES[4])
+               .addStringColumn(BENCHMARK_VARIABLES[5])
+               .addInt32Column("Repetition");
+        for (String label : getAllLabels()) {
+            samples.addFloat64Column(label);
+        }
+        
+        // one row per datapoint reported to the progress listener
+        ColumnarResultWriter.Table series = new ColumnarResultWriter.Table("series");
+        series.addInt32Column("Cell")
+              .addInt32Column("Repetition")
+              .addInt64Column("Time")
+              .addFloat64Column("Information loss");
+        
+        for (int i = 0; i < cells.size(); i++) {
+            BenchmarkCell cell = cells.get(i);
+            Object[] variables = cell.getVariables();
+            int numRepetitions = 0;
+            for (String label : getAllLabels()) {
+                numRepetitions = Math.max(numRepetitions, cell.getSamples(label).length);
+            }
+            for (int repetition = 0; repetition < numRepetitions; repetition++) {
+                List<Object> row = new ArrayList<>();
+                row.add(cell.getExperiment());
+                row.addAll(Arrays.asList(variables));
+                row.set(3, cell.getDataset().getCustomQiCount() == null ? -1 : cell.getDataset().getCustomQiCount());
+                row.add(repetition);
+                for (String label : getAllLabels()) {
+                    double[] values = cell.getSamples(label);
+                    row.add(repetition < values.length ? values[repetition] : Double.NaN);
+                }
+                samples.addRow(row.toArray());
+            }
+            for (int repetition = 0; repetition < cell.getSeries().size(); repetition++) {
+                Datapoint[] datapoints = cell.getSeries().get(repetition);
+                for (Datapoint datapoint : datapoints) {
+                    series.addRow(i, repetition, datapoint.getTime() - datapoints[0].getTime(),
+                                  datapoint.getLossValue());
+                }
+            }
+        }
+        
+        ColumnarResultWriter.write(file, getEnvironment(commit), samples, series);
+    }
+    
+    /**
+     * @param commit
+     * @return metadata about the environment of the benchmark run
+     */
+    private static Map<String, String> getEnvironment(String commit) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put("commit", commit);
+        result.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        result.put("java.version", System.getProperty("java.version"));
+        result.put("java.vm.name", System.getProperty("java.vm.name"));
+        result.put("java.vm.version", System.getProperty("java.vm.version"));
+        result.put("jvm.flags", runtime.getInputArguments().toString());
+        result.put("os.name", System.getProperty("os.name"));
+        result.put("os.arch", System.getProperty("os.arch"));
+        result.put("cpu.cores", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        result.put("cpu.model", getCpuModel());
+        result.put("heap.max", String.valueOf(Runtime.getRuntime().maxMemory()));
+        result.put("repetitions", String.valueOf(repetitions));
+        return result;
+    }
+    
+    /**
+     * @return the CPU model as reported by the operating system, if available
+     */
+    private static String getCpuModel() {
+        File cpuinfo = new File("/proc/cpuinfo");
+        if (cpuinfo.exists()) {
+            try {
+                BufferedReader reader = new BufferedReader(new FileReader(cpuinfo));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("model name")) {
+                            return line.substring(line.indexOf(':') + 1).trim();
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                // fall through
+            }
+        }
+        return System.getenv("PROCESSOR_IDENTIFIER") != null ? System.getenv("PROCESSOR_IDENTIFIER") : "unknown";
     }
 
-    private static void performHeuraklesFlashComparison() throws IOException {
+    /**
+     * Records the sample of a repetition
+     * @param cell
+     * @param measure
+     * @param value
+     */
+    private static void record(BenchmarkCell cell, int measure, double value) {
+        BENCHMARK.addValue(measure, value);
+        cell.addSample(MEASURE_LABELS[measure], value);
+    }
+
+    /**
+     * Records that a repetition has no value for the measure, because no solution has been
+     * found or because it cannot be measured. The result file contains <code>NO_SOLUTION_FOUND</code>,
+     * the raw samples contain NaN, so that the baseline comparison does not mistake it for a real value.
+     * @param cell
+     * @param measure
+     */
+    private static void recordMissing(BenchmarkCell cell, int measure) {
+        BENCHMARK.addValue(measure, NO_SOLUTION_FOUND);
+        cell.addSample(MEASURE_LABELS[measure], Double.NaN);
+    }
+
+    /**
+     * Records the sample of a repetition of the node throughput benchmark
+     * @param cell
+     * @param measure
+     * @param value
+     */
+    private static void recordThroughput(BenchmarkCell cell, int measure, double value) {
+        THROUGHPUT_BENCHMARK.addValue(measure, value);
+        cell.addSample(THROUGHPUT_LABELS[measure], value);
+    }
+
+    /**
+     * @return the labels of all measures
+     */
+    private static String[] getAllLabels() {
+        String[] result = Arrays.copyOf(MEASURE_LABELS, MEASURE_LABELS.length + THROUGHPUT_LABELS.length);
+        System.arraycopy(THROUGHPUT_LABELS, 0, result, MEASURE_LABELS.length, THROUGHPUT_LABELS.length);
+        return result;
+    }
+
+    private static void planHeuraklesFlashComparison(BenchmarkConfiguration config, List<BenchmarkCell> cells) {
     	
         // repeat for each privacy criterium
-        for (BenchmarkPrivacyCriterium privCriterium : RiskBasedBenchmarkSetup.getPrivacyCriteria()) {
+        for (BenchmarkPrivacyCriterium privCriterium : config.getPrivacyCriteria()) {
         	
             // repeat for each data set
-            for (BenchmarkDataset dataset : RiskBasedBenchmarkSetup.getFlashComparisonDatasets()) {
+            for (BenchmarkDataset dataset : config.getFlashComparisonDatasets()) {
                 
                 // repeat for each metric
-                for (BenchmarkMetric metric : RiskBasedBenchmarkSetup.getMetrics()) {
+                for (BenchmarkMetric metric : config.getMetrics()) {
                 	
                     // repeat for each suppression factor
-                    for (double suppression : RiskBasedBenchmarkSetup.getSuppressionValues()) {                    	
-                    	String resultFileName = "resultFlashCompare.csv";
+                    for (double suppression : config.getSuppressionValues()) {
+                    	String resultFileName = config.getFlashComparisonOutput();
                     	
                     	// perform the Flash run
-                        long avgExecutionTimeMillis = runAndRecordBenchmark(Algorithm.FLASH, privCriterium, dataset, metric, suppression, null, resultFileName);
+                        BenchmarkCell flash = new BenchmarkCell(Experiment.FLASH_COMPARISON, Algorithm.FLASH, privCriterium, dataset, metric, suppression, null, resultFileName);
+                        cells.add(flash);
                         
                         // perform a Heurakles run with the same configuration and the execution time
                         // of the previous Flash run as Heurakles' runtime limit
-                        runAndRecordBenchmark(Algorithm.HEURAKLES, privCriterium, dataset, metric, suppression, avgExecutionTimeMillis, resultFileName);
+                        cells.add(new BenchmarkCell(Experiment.FLASH_COMPARISON, Algorithm.HEURAKLES, flash, resultFileName));
                         
                         // perform an exhaustive Heurakles run examining the complete lattice
-                        runAndRecordBenchmark(Algorithm.HEURAKLES, privCriterium, dataset, metric, suppression, null, "resultsHeuraklesExhaustive.csv");
+                        cells.add(new BenchmarkCell(Experiment.FLASH_COMPARISON, Algorithm.HEURAKLES, privCriterium, dataset, metric, suppression, null, config.getExhaustiveOutput()));
                     }
                 }
             }
         }
     }
 
-    private static void performHeuraklesSelfComparison() throws IOException {
+    private static void planHeuraklesSelfComparison(BenchmarkConfiguration config, List<BenchmarkCell> cells) {
     	
         // repeat for each privacy criterium
-        for (BenchmarkPrivacyCriterium criterium : RiskBasedBenchmarkSetup.getPrivacyCriteria()) {
+        for (BenchmarkPrivacyCriterium criterium : config.getPrivacyCriteria()) {
         	
             // repeat for each data set, each dataset represents 
-            for (BenchmarkDatafile datafile : RiskBasedBenchmarkSetup.getSelfComparisonDatafiles()) {
+            for (BenchmarkDatafile datafile : config.getSelfComparisonDatafiles()) {
             	
                 // repeat for each metric
-                for (BenchmarkMetric metric : RiskBasedBenchmarkSetup.getMetrics()) {
+                for (BenchmarkMetric metric : config.getMetrics()) {
                 	
                     // repeat for each suppression factor
-                    for (double suppression : RiskBasedBenchmarkSetup.getSuppressionValues()) {
+                    for (double suppression : config.getSuppressionValues()) {
                     	
                         // repeat for different QI counts
-                        for (int qiCount : RiskBasedBenchmarkSetup.getSelfComparisonQiCounts()) {
+                        for (int qiCount : config.getSelfComparisonQiCounts()) {
                             BenchmarkDataset dataset = new BenchmarkDataset(datafile, qiCount);
-                            runAndRecordBenchmark(Algorithm.HEURAKLES, criterium, dataset, metric, suppression, Long.valueOf(600000), "resultSelfCompare.csv");
+                            cells.add(new BenchmarkCell(Experiment.SELF_COMPARISON, Algorithm.HEURAKLES, criterium, dataset, metric, suppression,
+                                                        config.getSelfComparisonRuntimeLimitMillis(), config.getSelfComparisonOutput()));
                         }
                     }
                 }
@@ -142,63 +401,227 @@ public class RiskBasedBenchmarkMain {
         }
     }
 
+    /**
+     * Runs the streaming mode on the datasets of the Flash comparison. The streaming
+     * mode reports the average class size of the transformation found, ignoring suppression,
+     * which is recorded under its own metric. Population uniqueness is replaced with sample
+     * uniqueness, which is recorded under its own label as well.
+     * @param config
+     * @param cells
+     */
+    private static void planStreamingComparison(BenchmarkConfiguration config, List<BenchmarkCell> cells) {
+        
+        // repeat for each privacy criterium
+        for (BenchmarkPrivacyCriterium privCriterium : config.getPrivacyCriteria()) {
+            
+            // repeat for each data set
+            for (BenchmarkDataset dataset : config.getFlashComparisonDatasets()) {
+                
+                // repeat for each suppression factor
+                for (double suppression : config.getSuppressionValues()) {
+                    cells.add(new BenchmarkCell(Experiment.STREAMING_COMPARISON, Algorithm.STREAMING, privCriterium.getStreamingCriterium(), dataset, BenchmarkMetric.AVERAGE_CLASS_SIZE, suppression, null, config.getStreamingComparisonOutput()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures the cost of single node checks for each dataset, privacy criterium and metric,
+     * independently of the search strategy. The datasets are the same as for the Flash comparison
+     * and the self comparison. Nodes are checked without suppression.
+     * @param config
+     * @param cells
+     */
+    private static void planNodeThroughputBenchmark(BenchmarkConfiguration config, List<BenchmarkCell> cells) {
+        
+        List<BenchmarkDataset> datasets = new ArrayList<>(Arrays.asList(config.getFlashComparisonDatasets()));
+        for (BenchmarkDatafile datafile : config.getSelfComparisonDatafiles()) {
+            for (int qiCount : config.getSelfComparisonQiCounts()) {
+                datasets.add(new BenchmarkDataset(datafile, qiCount));
+            }
+        }
+        
+        // repeat for each privacy criterium
+        for (BenchmarkPrivacyCriterium privCriterium : config.getPrivacyCriteria()) {
+            
+            // repeat for each data set
+            for (BenchmarkDataset dataset : datasets) {
+                
+                // repeat for each metric
+                for (BenchmarkMetric metric : config.getMetrics()) {
+                    cells.add(new BenchmarkCell(Experiment.NODE_THROUGHPUT, Algorithm.NODE_EVALUATION, privCriterium, dataset, metric, 0d, null, config.getNodeThroughputOutput()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param cell
+     * @param config
+     * @throws IOException
+     */
+    private static void runAndRecordNodeThroughputBenchmark(BenchmarkCell cell, BenchmarkConfiguration config) throws IOException {
+        
+        // tell the user what's happening
+        System.out.println("Benchmarking (" + cell + ")");
+        
+        // build the lattice with ARX, this is not measured
+        NodeEvaluator evaluator = new NodeEvaluator(cell.getDataset(), cell.getCriterium(), cell.getMetric());
+        ARXNode[] nodes = evaluator.getSampleNodes(config.getNodeThroughputSamples(), config.getNodeThroughputSeed());
+        
+        // start benchmarking
+        THROUGHPUT_BENCHMARK.addRun(cell.getVariables());
+        for (int i = 0; i < repetitions; i++) {
+            PROGRESS.startRepetition(i);
+            NodeEvaluator.Throughput throughput = evaluator.measure(nodes);
+            PROGRESS.nodesChecked(nodes.length);
+            recordThroughput(cell, NODE_LATENCY_P50, throughput.getP50());
+            recordThroughput(cell, NODE_LATENCY_P99, throughput.getP99());
+            recordThroughput(cell, NODES_PER_SECOND, throughput.getNodesPerSecond());
+        }
+        
+        // write results to file
+        THROUGHPUT_BENCHMARK.getResults().write(new File(cell.getResultFileName()));
+    }
+
+    /**
+     * @param cell
+     * @param config
+     * @throws IOException
+     */
+    private static void runAndRecordStreamingBenchmark(BenchmarkCell cell, BenchmarkConfiguration config) throws IOException {
+        
+        // tell the user what's happening
+        System.out.println("Benchmarking (" + cell + ")");
+        
+        // start benchmarking
+        BENCHMARK.addRun(cell.getVariables());
+        for (int i = 0; i < repetitions; i++) {
+            PROGRESS.startRepetition(i);
+            StreamingBenchmarkDataset streamingDataset = new StreamingBenchmarkDataset(cell.getDataset(),
+                                                                                       config.getStreamingChunkSize(),
+                                                                                       config.getStreamingPartitions(),
+                                                                                       config.getStreamingSpillDirectory(),
+                                                                                       config.getThreads());
+            long start = System.nanoTime();
+            streamingDataset.prepare();
+            EquivalenceClassStatistics result = streamingDataset.anonymize(cell.getCriterium(), cell.getSuppression());
+            long executionTime = System.nanoTime() - start;
+            record(cell, EXECUTION_TIME, executionTime);
+            PROGRESS.nodesChecked(streamingDataset.getTransformationsChecked());
+            if (result != null) {
+                PROGRESS.solutionFound(result.getAverageClassSize());
+                record(cell, DISCOVERY_TIME, executionTime / 1000000);
+                record(cell, INFORMATION_LOSS_MINIMUM, result.getAverageClassSize());
+            } else {
+                recordMissing(cell, DISCOVERY_TIME);
+                recordMissing(cell, INFORMATION_LOSS_MINIMUM);
+            }
+        }
+        
+        // write results to file
+        BENCHMARK.getResults().write(new File(cell.getResultFileName()));
+        cell.setExecutionTimeMillis(getLastExecutionTimeMillis(BENCHMARK));
+    }
+
 	/**
-	 * @param algo
-	 * @param privCriterium
-	 * @param dataset
-	 * @param metric
-	 * @param suppression
-	 * @param runtimeLimitMillis
-	 * @param resultFileName
+	 * @param cell
+	 * @param reportProgress whether the anonymizer reports its progress while running. This
+	 *        is only enabled when metrics are served, as it adds callbacks to the measured time.
 	 * @return the execution time of the algorithm
 	 * @throws IOException
 	 */
-	private static long runAndRecordBenchmark(
-			Algorithm algo,
-			BenchmarkPrivacyCriterium privCriterium,
-			BenchmarkDataset dataset,
-			BenchmarkMetric metric,
-			double suppression,
-			Long runtimeLimitMillis,
-			String resultFileName) throws IOException {
+	private static long runAndRecordBenchmark(BenchmarkCell cell, boolean reportProgress) throws IOException {
         
 		// tell the user what's happening
-		System.out.println("Benchmarking (" + algo + " / " + privCriterium + " / " + dataset.getDatafile().toString() + " / " + 
-    			dataset.getCustomQiCount() + " / " +  metric.toString() + " / " + suppression + ")");
+		System.out.println("Benchmarking (" + cell + ")");
     	
     	// create the anonymizer
     	ARXAnonymizer anonymizer = new ARXAnonymizer();
+    	if (reportProgress) {
+    	    anonymizer.setListener(new ARXListener() {
+    	        @Override
+    	        public void progress(double progress) {
+    	            PROGRESS.repetitionProgress(progress);
+    	        }
+    	    });
+    	}
 		
         // build a algorithm configuration based on the benchmark parameters
-        ARXConfiguration anonConfig = RiskBasedBenchmarkSetup.prepareConfiguration(algo, privCriterium, metric, suppression, runtimeLimitMillis);
+        ARXConfiguration anonConfig = RiskBasedBenchmarkSetup.prepareConfiguration(cell.getAlgorithm(), cell.getCriterium(), cell.getMetric(), cell.getSuppression(), cell.getRuntimeLimitMillis());
         
 		// start benchmarking
-		BENCHMARK.addRun(privCriterium.toString(), dataset.getDatafile().toString(), dataset.getCustomQiCount(), metric.toString(), suppression, algo);
-		for (int i = 0; i < REPETITIONS; i++) {
-		    ProgressListener progListener = new ProgressListener();
+		BENCHMARK.addRun(cell.getVariables());
+		for (int i = 0; i < repetitions; i++) {
+		    PROGRESS.startRepetition(i);
+		    ProgressListener progListener = new ProgressListener(PROGRESS);
 		    // TODO: implement ARXAnonymizer.addProgressListener(ProgressListener listener)
 		    // anonymizer.addProgressListener(progListener);
-			BENCHMARK.startTimer(EXECUTION_TIME);
-		    ARXResult result = anonymizer.anonymize(dataset.toArxData(), anonConfig);
-		    BENCHMARK.addStopTimer(EXECUTION_TIME);
-		    if (progListener.solutionFound()) {
-		        // get the first and last datapoint
-                Datapoint fistDp = progListener.getDatapoints()[0];
-                Datapoint lastDp = progListener.getDatapoints()[progListener.getDatapoints().length - 1];
-		        BENCHMARK.addValue(DISCOVERY_TIME, lastDp.getTime() - fistDp.getTime());
-		        BENCHMARK.addValue(INFORMATION_LOSS_MINIMUM, lastDp.getLoss().getValue());
+		    long start = System.nanoTime();
+		    ARXResult result = anonymizer.anonymize(cell.getDataset().toArxData(), anonConfig);
+		    record(cell, EXECUTION_TIME, System.nanoTime() - start);
+		    PROGRESS.nodesChecked(getNumCheckedNodes(result));
+		    ARXNode optimum = result.getGlobalOptimum();
+		    if (optimum != null) {
+		        double loss = getInformationLoss(result, optimum);
+		        PROGRESS.solutionFound(loss);
+		        if (progListener.solutionFound()) {
+		            // get the first and last datapoint
+		            Datapoint fistDp = progListener.getDatapoints()[0];
+		            Datapoint lastDp = progListener.getDatapoints()[progListener.getDatapoints().length - 1];
+		            record(cell, DISCOVERY_TIME, lastDp.getTime() - fistDp.getTime());
+		        } else {
+		            // the listener cannot be attached to ARX 3.0, so the discovery time is unknown
+		            recordMissing(cell, DISCOVERY_TIME);
+		        }
+		        record(cell, INFORMATION_LOSS_MINIMUM, loss);
 		    } else {
-                BENCHMARK.addValue(DISCOVERY_TIME, NO_SOLUTION_FOUND);
-                BENCHMARK.addValue(INFORMATION_LOSS_MINIMUM, NO_SOLUTION_FOUND);
+                recordMissing(cell, DISCOVERY_TIME);
+                recordMissing(cell, INFORMATION_LOSS_MINIMUM);
 		    }
+		    cell.addSeries(progListener.getDatapoints());
 		}
 		
 		// write results to file
-		BENCHMARK.getResults().write(new File(resultFileName));
+		BENCHMARK.getResults().write(new File(cell.getResultFileName()));
 		
 		return getLastExecutionTimeMillis(BENCHMARK);
 	}
 	
+	/**
+	 * Returns the information loss of a node. Losses which are not a single number, such as the
+	 * loss of the loss metric aggregated with the geometric mean, are reported relative to the
+	 * losses of the bottom and the top of the lattice, i.e. in [0, 1].
+	 * @param result
+	 * @param node
+	 * @return
+	 */
+	private static double getInformationLoss(ARXResult result, ARXNode node) {
+	    InformationLoss<?> loss = node.getMinimumInformationLoss();
+	    if (loss.getValue() instanceof Number) {
+	        return ((Number) loss.getValue()).doubleValue();
+	    }
+	    ARXLattice lattice = result.getLattice();
+	    return loss.relativeTo(lattice.getBottom().getMinimumInformationLoss(), lattice.getTop().getMaximumInformationLoss());
+	}
+	
+	/**
+	 * @param result
+	 * @return the number of nodes in the solution space which have been checked, excluding nodes
+	 *         whose anonymity has only been inferred
+	 */
+	private static long getNumCheckedNodes(ARXResult result) {
+	    long count = 0;
+	    for (ARXNode[] level : result.getLattice().getLevels()) {
+	        for (ARXNode node : level) {
+	            if (node.isChecked()) {
+	                count++;
+	            }
+	        }
+	    }
+	    return count;
+	}
+	
 	/**
 	 * @param benchmark
 	 * @return the execution time of the last benchmark as reported in the benchmark log
@@ -32,6 +32,18 @@ import org.deidentifier.arx.metric.Metric.AggregateFunction;
  */
 public class RiskBasedBenchmarkSetup {
 
+    /**
+     * Returns the experiments performed by default. The streaming comparison and the node
+     * throughput benchmark must be selected explicitly.
+     * @return
+     */
+    public static Experiment[] getExperiments() {
+        return new Experiment[] {
+         Experiment.FLASH_COMPARISON,
+         Experiment.SELF_COMPARISON,
+        };
+    }
+    
     /**
      * Returns the datafiles for the Heurakles-Flash-Comparison
      * @return
@@ -76,6 +88,14 @@ public class RiskBasedBenchmarkSetup {
         };
     }
     
+    /**
+     * Returns the runtime limit for the Heurakles-Self-Comparison
+     * @return
+     */
+    public static long getSelfComparisonRuntimeLimitMillis() {
+        return 600000;
+    }
+    
     /**
      * Returns all metrics
      * @return
@@ -98,6 +118,54 @@ public class RiskBasedBenchmarkSetup {
         };
     }
     
+    /**
+     * Returns the number of repetitions per cell
+     * @return
+     */
+    public static int getRepetitions() {
+        return 2;
+    }
+    
+    /**
+     * Returns the number of threads aggregating spill partitions in the streaming comparison
+     * @return
+     */
+    public static int getThreads() {
+        return 1;
+    }
+    
+    /**
+     * Returns the number of records per chunk for the streaming comparison
+     * @return
+     */
+    public static int getStreamingChunkSize() {
+        return 1000000;
+    }
+    
+    /**
+     * Returns the number of spill partitions for the streaming comparison
+     * @return
+     */
+    public static int getStreamingPartitions() {
+        return 16;
+    }
+    
+    /**
+     * Returns the number of lattice nodes sampled for the node throughput benchmark
+     * @return
+     */
+    public static int getNodeThroughputSamples() {
+        return 100;
+    }
+    
+    /**
+     * Returns the seed for sampling lattice nodes for the node throughput benchmark
+     * @return
+     */
+    public static long getNodeThroughputSeed() {
+        return 0L;
+    }
+    
     /**
      * Returns all privacy criteria
      * @return
@@ -112,19 +180,133 @@ public class RiskBasedBenchmarkSetup {
     
     // definition section
     
-    public static enum BenchmarkPrivacyCriterium {
-        FIVE_ANONYMITY {
+    public static enum Experiment {
+        FLASH_COMPARISON {
             @Override
             public String toString() {
-                return "(5)-Anonymity";
+                return "Flash comparison";
             }
         },
-        ZERO_DOT_01_UNIQUENESS {
+        SELF_COMPARISON {
             @Override
             public String toString() {
-                return "(0.01)-Uniqueness";
+                return "self comparison";
             }
-        };
+        },
+        STREAMING_COMPARISON {
+            @Override
+            public String toString() {
+                return "streaming comparison";
+            }
+        },
+        NODE_THROUGHPUT {
+            @Override
+            public String toString() {
+                return "node throughput benchmark";
+            }
+        }
+    }
+    
+    /**
+     * A privacy criterium together with its parameter, i.e. k or the uniqueness threshold
+     */
+    public static class BenchmarkPrivacyCriterium {
+        
+        public static final BenchmarkPrivacyCriterium FIVE_ANONYMITY         = new BenchmarkPrivacyCriterium(Type.K_ANONYMITY, 5);
+        public static final BenchmarkPrivacyCriterium ZERO_DOT_01_UNIQUENESS = new BenchmarkPrivacyCriterium(Type.POPULATION_UNIQUENESS, 0.01);
+        
+        public static enum Type {
+            K_ANONYMITY,
+            POPULATION_UNIQUENESS,
+            /** Fraction of sample uniques, used by the streaming mode instead of population uniqueness */
+            SAMPLE_UNIQUENESS
+        }
+        
+        private final Type   type;
+        private final double parameter;
+        
+        /**
+         * @param type
+         * @param parameter
+         */
+        public BenchmarkPrivacyCriterium(Type type, double parameter) {
+            this.type = type;
+            this.parameter = parameter;
+        }
+        
+        /**
+         * Parses a criterium of the form <code>TYPE:parameter</code>, e.g. <code>K_ANONYMITY:5</code>
+         * @param value
+         * @return
+         */
+        public static BenchmarkPrivacyCriterium parse(String value) {
+            String[] parts = value.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid criterium: " + value);
+            }
+            Type type = Type.valueOf(parts[0].trim().toUpperCase());
+            double parameter = Double.valueOf(parts[1].trim());
+            if (type == Type.K_ANONYMITY && parameter != Math.rint(parameter)) {
+                throw new IllegalArgumentException("Invalid k: " + parts[1]);
+            }
+            if (type == Type.SAMPLE_UNIQUENESS) {
+                throw new IllegalArgumentException("Sample uniqueness is derived from population uniqueness for the streaming mode: " + value);
+            }
+            return new BenchmarkPrivacyCriterium(type, parameter);
+        }
+        
+        public Type getType() {
+            return type;
+        }
+        
+        /**
+         * @return k for k-anonymity
+         */
+        public int getK() {
+            return (int) parameter;
+        }
+        
+        /**
+         * @return the threshold for population or sample uniqueness
+         */
+        public double getThreshold() {
+            return parameter;
+        }
+        
+        /**
+         * Returns the criterium checked by the streaming mode, which replaces population
+         * uniqueness with sample uniqueness
+         * @return
+         */
+        public BenchmarkPrivacyCriterium getStreamingCriterium() {
+            return type == Type.POPULATION_UNIQUENESS ? new BenchmarkPrivacyCriterium(Type.SAMPLE_UNIQUENESS, parameter) : this;
+        }
+        
+        @Override
+        public String toString() {
+            switch (type) {
+            case K_ANONYMITY:
+                return "(" + getK() + ")-Anonymity";
+            case POPULATION_UNIQUENESS:
+                return "(" + getThreshold() + ")-Uniqueness";
+            case SAMPLE_UNIQUENESS:
+                return "(" + getThreshold() + ")-SampleUniqueness";
+            default:
+                throw new RuntimeException("Invalid criterium");
+            }
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof BenchmarkPrivacyCriterium &&
+                   type == ((BenchmarkPrivacyCriterium) other).type &&
+                   parameter == ((BenchmarkPrivacyCriterium) other).parameter;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Double.valueOf(parameter).hashCode();
+        }
     }
     
 
@@ -141,6 +323,13 @@ public class RiskBasedBenchmarkSetup {
             public String toString() {
                 return "Loss";
             }
+        },
+        /** Records divided by classes, ignoring suppression. Reported by the streaming mode only */
+        AVERAGE_CLASS_SIZE {
+            @Override
+            public String toString() {
+                return "Average class size";
+            }
         }
     }
     
@@ -158,6 +347,18 @@ public class RiskBasedBenchmarkSetup {
             public String toString() {
                 return "Heurakles";
             }
+        },
+        STREAMING {
+            @Override
+            public String toString() {
+                return "Streaming";
+            }
+        },
+        NODE_EVALUATION {
+            @Override
+            public String toString() {
+                return "Node evaluation";
+            }
         }
     }
 
@@ -182,12 +383,12 @@ public class RiskBasedBenchmarkSetup {
         // TODO implement configuration of Algorithm
         
         // configure privacy criterium
-        switch (criterium) {
-        case FIVE_ANONYMITY:
-            config.addCriterion(new KAnonymity(5));
+        switch (criterium.getType()) {
+        case K_ANONYMITY:
+            config.addCriterion(new KAnonymity(criterium.getK()));
             break;
-        case ZERO_DOT_01_UNIQUENESS:
-            config.addCriterion(new PopulationUniqueness(0.01, ARXPopulationModel.create(Region.USA)));
+        case POPULATION_UNIQUENESS:
+            config.addCriterion(new PopulationUniqueness(criterium.getThreshold(), ARXPopulationModel.create(Region.USA)));
             break;
         default:
             throw new RuntimeException("Invalid criterium");        
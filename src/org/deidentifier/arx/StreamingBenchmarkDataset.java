@@ -0,0 +1,449 @@
+/*
+ * Benchmark of risk-based anonymization in ARX 3.0.0
+ * Copyright 2015 - Fabian Prasser
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deidentifier.arx.RiskBasedBenchmarkSetup.BenchmarkPrivacyCriterium;
+
+/**
+ * Streaming access to a dataset that does not fit into main memory. The csv file is
+ * read twice: the first pass builds dictionaries and hierarchies for the quasi-identifiers,
+ * the second pass streams the records in chunks and computes the equivalence classes
+ * of a transformation. Chunks are spilled to hash partitions on disk, which are then
+ * aggregated one at a time (or by a fixed number of threads in parallel), so memory is
+ * bounded by the chunk size and the number of distinct tuples per partition rather than
+ * by the number of records.
+ */
+public class StreamingBenchmarkDataset {
+
+    /** The dataset */
+    private final BenchmarkDataset dataset;
+    /** Number of records per chunk */
+    private final int              chunkSize;
+    /** Number of spill partitions */
+    private final int              partitions;
+    /** Directory for spill files */
+    private final File             spillDirectory;
+    /** Number of threads aggregating spill partitions */
+    private final int              threads;
+
+    /** Indices of the quasi-identifiers in the csv file */
+    private int[]                  columns;
+    /** Dictionaries for the values of the quasi-identifiers */
+    private List<Map<String, Integer>> dictionaries;
+    /** Attribute -> level -> value code -> generalized code */
+    private int[][][]              generalizations;
+    /** Attribute -> level -> number of distinct generalized values */
+    private int[][]                domainSizes;
+    /** Number of transformations checked */
+    private long                   transformationsChecked = 0;
+
+    /**
+     * @param dataset
+     * @param chunkSize
+     * @param partitions
+     * @param spillDirectory
+     * @param threads
+     */
+    public StreamingBenchmarkDataset(BenchmarkDataset dataset, int chunkSize, int partitions, File spillDirectory, int threads) {
+        this.dataset = dataset;
+        this.chunkSize = chunkSize;
+        this.partitions = partitions;
+        this.spillDirectory = spillDirectory;
+        this.threads = threads;
+    }
+
+    /**
+     * First pass: builds the dictionaries and the hierarchies. Memory usage is
+     * bounded by the domain sizes of the quasi-identifiers.
+     * @throws IOException
+     */
+    public void prepare() throws IOException {
+
+        String[] qis = dataset.getQuasiIdentifyingAttributes();
+        BufferedReader reader = new BufferedReader(new FileReader(dataset.getDataFilePath()));
+        try {
+            columns = getColumns(reader.readLine(), qis);
+            dictionaries = new ArrayList<>();
+            for (int i = 0; i < qis.length; i++) {
+                dictionaries.add(new LinkedHashMap<String, Integer>());
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] row = split(line);
+                for (int i = 0; i < columns.length; i++) {
+                    Map<String, Integer> dictionary = dictionaries.get(i);
+                    String value = row[columns[i]];
+                    if (!dictionary.containsKey(value)) {
+                        dictionary.put(value, dictionary.size());
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        // build generalization tables from the hierarchies
+        generalizations = new int[qis.length][][];
+        domainSizes = new int[qis.length][];
+        for (int i = 0; i < qis.length; i++) {
+            String[] values = dictionaries.get(i).keySet().toArray(new String[dictionaries.get(i).size()]);
+            String[][] hierarchy = dataset.loadHierarchy(qis[i], values).getHierarchy();
+            Map<String, String[]> rows = new HashMap<>();
+            for (String[] row : hierarchy) {
+                rows.put(row[0], row);
+            }
+            int height = hierarchy[0].length;
+            generalizations[i] = new int[height][values.length];
+            domainSizes[i] = new int[height];
+            for (int level = 0; level < height; level++) {
+                Map<String, Integer> codes = new HashMap<>();
+                for (int code = 0; code < values.length; code++) {
+                    String[] row = rows.get(values[code]);
+                    if (row == null) {
+                        throw new RuntimeException("Value '" + values[code] + "' of attribute '" + qis[i] + "' is missing in hierarchy");
+                    }
+                    Integer generalized = codes.get(row[level]);
+                    if (generalized == null) {
+                        generalized = codes.size();
+                        codes.put(row[level], generalized);
+                    }
+                    generalizations[i][level][code] = generalized;
+                }
+                domainSizes[i][level] = codes.size();
+            }
+        }
+    }
+
+    /**
+     * Second pass: computes the equivalence classes of the given transformation by
+     * streaming the records in chunks
+     * @param transformation
+     * @return
+     * @throws IOException
+     */
+    public EquivalenceClassStatistics getStatistics(int[] transformation) throws IOException {
+
+        if (generalizations == null) {
+            throw new IllegalStateException("Dataset has not been prepared");
+        }
+
+        transformationsChecked++;
+        EquivalenceClassStatistics statistics = new EquivalenceClassStatistics(transformation.clone());
+        Map<Tuple, int[]> chunk = new HashMap<>();
+        File[] spills = null;
+        int rows = 0;
+
+        BufferedReader reader = new BufferedReader(new FileReader(dataset.getDataFilePath()));
+        try {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] row = split(line);
+                int[] values = new int[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    values[i] = generalizations[i][transformation[i]][dictionaries.get(i).get(row[columns[i]])];
+                }
+                Tuple tuple = new Tuple(values);
+                int[] count = chunk.get(tuple);
+                if (count == null) {
+                    chunk.put(tuple, new int[] { 1 });
+                } else {
+                    count[0]++;
+                }
+                if (++rows == chunkSize) {
+                    spills = spill(chunk, spills);
+                    chunk.clear();
+                    rows = 0;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        // everything fitted into a single chunk
+        if (spills == null) {
+            for (int[] count : chunk.values()) {
+                statistics.addClass(count[0]);
+            }
+            return statistics;
+        }
+
+        // aggregate partition by partition
+        if (!chunk.isEmpty()) {
+            spills = spill(chunk, spills);
+            chunk.clear();
+        }
+        if (threads <= 1) {
+            for (File spill : spills) {
+                try {
+                    for (int[] count : aggregate(spill).values()) {
+                        statistics.addClass(count[0]);
+                    }
+                } finally {
+                    spill.delete();
+                }
+            }
+        } else {
+            aggregate(spills, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Aggregates the spill partitions in parallel
+     * @param spills
+     * @param statistics
+     * @throws IOException
+     */
+    private void aggregate(File[] spills, EquivalenceClassStatistics statistics) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Integer>>> futures = new ArrayList<>();
+            for (final File spill : spills) {
+                futures.add(executor.submit(new Callable<List<Integer>>() {
+                    @Override
+                    public List<Integer> call() throws IOException {
+                        List<Integer> sizes = new ArrayList<>();
+                        for (int[] count : aggregate(spill).values()) {
+                            sizes.add(count[0]);
+                        }
+                        return sizes;
+                    }
+                }));
+            }
+            for (Future<List<Integer>> future : futures) {
+                for (int size : future.get()) {
+                    statistics.addClass(size);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            for (File spill : spills) {
+                spill.delete();
+            }
+        }
+    }
+
+    /**
+     * @return the number of transformations for which statistics have been computed
+     */
+    public long getTransformationsChecked() {
+        return transformationsChecked;
+    }
+
+    /**
+     * Searches for a transformation fulfilling the privacy criterium. The search starts with
+     * the original data and greedily generalizes the attribute with the largest domain until
+     * the criterium is fulfilled. Each step is a pass over the data.
+     * @param criterium
+     * @param suppression
+     * @return the statistics of the transformation found, or <code>null</code> if there is none
+     * @throws IOException
+     */
+    public EquivalenceClassStatistics anonymize(BenchmarkPrivacyCriterium criterium, double suppression) throws IOException {
+
+        int[] transformation = new int[columns.length];
+        while (true) {
+            EquivalenceClassStatistics statistics = getStatistics(transformation);
+            if (isFulfilled(statistics, criterium, suppression)) {
+                return statistics;
+            }
+            int attribute = -1;
+            for (int i = 0; i < transformation.length; i++) {
+                if (transformation[i] < generalizations[i].length - 1 &&
+                    (attribute == -1 || domainSizes[i][transformation[i]] > domainSizes[attribute][transformation[attribute]])) {
+                    attribute = i;
+                }
+            }
+            if (attribute == -1) {
+                return null;
+            }
+            transformation[attribute]++;
+        }
+    }
+
+    /**
+     * Returns whether the statistics fulfill the privacy criterium. Population uniqueness
+     * is not supported, as the streaming mode has no population model.
+     * @param statistics
+     * @param criterium
+     * @param suppression
+     * @return
+     */
+    private static boolean isFulfilled(EquivalenceClassStatistics statistics, BenchmarkPrivacyCriterium criterium, double suppression) {
+        switch (criterium.getType()) {
+        case K_ANONYMITY:
+            return statistics.isKAnonymous(criterium.getK(), suppression);
+        case SAMPLE_UNIQUENESS:
+            return statistics.isUnique(criterium.getThreshold(), suppression);
+        default:
+            throw new RuntimeException("Invalid criterium");
+        }
+    }
+
+    /**
+     * Writes the chunk to the spill partitions
+     * @param chunk
+     * @param spills
+     * @return the spill files
+     * @throws IOException
+     */
+    private File[] spill(Map<Tuple, int[]> chunk, File[] spills) throws IOException {
+        if (spills == null) {
+            spills = new File[partitions];
+            for (int i = 0; i < partitions; i++) {
+                spills[i] = File.createTempFile("arx-spill-", ".bin", spillDirectory);
+            }
+        }
+        DataOutputStream[] outputs = new DataOutputStream[partitions];
+        try {
+            for (int i = 0; i < partitions; i++) {
+                outputs[i] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spills[i], true)));
+            }
+            for (Entry<Tuple, int[]> entry : chunk.entrySet()) {
+                DataOutputStream output = outputs[(entry.getKey().hashCode() & Integer.MAX_VALUE) % partitions];
+                for (int value : entry.getKey().values) {
+                    output.writeInt(value);
+                }
+                output.writeInt(entry.getValue()[0]);
+            }
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        return spills;
+    }
+
+    /**
+     * Reads a spill partition and merges the counts of equal tuples
+     * @param spill
+     * @return
+     * @throws IOException
+     */
+    private Map<Tuple, int[]> aggregate(File spill) throws IOException {
+        Map<Tuple, int[]> result = new HashMap<>();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(spill)));
+        try {
+            while (true) {
+                int[] values = new int[columns.length];
+                try {
+                    values[0] = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                for (int i = 1; i < values.length; i++) {
+                    values[i] = input.readInt();
+                }
+                int size = input.readInt();
+                Tuple tuple = new Tuple(values);
+                int[] count = result.get(tuple);
+                if (count == null) {
+                    result.put(tuple, new int[] { size });
+                } else {
+                    count[0] += size;
+                }
+            }
+        } finally {
+            input.close();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the indices of the given attributes in the header
+     * @param header
+     * @param attributes
+     * @return
+     */
+    private static int[] getColumns(String header, String[] attributes) {
+        String[] names = split(header);
+        int[] result = new int[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            result[i] = Arrays.asList(names).indexOf(attributes[i]);
+            if (result[i] == -1) {
+                throw new RuntimeException("Attribute '" + attributes[i] + "' not found");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits a line of the semicolon-separated datafiles
+     * @param line
+     * @return
+     */
+    private static String[] split(String line) {
+        return line.split(";", -1);
+    }
+
+    /**
+     * A tuple of generalized values
+     */
+    private static class Tuple {
+
+        private final int[] values;
+        private final int   hash;
+
+        Tuple(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Tuple && Arrays.equals(values, ((Tuple) other).values);
+        }
+    }
+}